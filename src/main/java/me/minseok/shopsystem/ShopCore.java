@@ -1,8 +1,26 @@
 package me.minseok.shopsystem;
 
+import me.minseok.shopsystem.audit.AuditLog;
+import me.minseok.shopsystem.database.DatabaseExecutor;
 import me.minseok.shopsystem.database.DatabaseManager;
+import me.minseok.shopsystem.database.PoolSizer;
+import me.minseok.shopsystem.database.QueryProfiler;
+import me.minseok.shopsystem.database.ReplicaMonitor;
+import me.minseok.shopsystem.database.StorageBackend;
+import me.minseok.shopsystem.economy.AccountIndex;
+import me.minseok.shopsystem.economy.AccountLocks;
+import me.minseok.shopsystem.economy.BalanceCache;
+import me.minseok.shopsystem.economy.BalanceLeaderboard;
+import me.minseok.shopsystem.economy.EconomyExecutor;
+import me.minseok.shopsystem.economy.EconomyJournal;
+import me.minseok.shopsystem.economy.EconomyMetrics;
+import me.minseok.shopsystem.economy.TransactionCompactor;
+import me.minseok.shopsystem.economy.TransactionLogWriter;
 import me.minseok.shopsystem.economy.VaultEconomy;
 import me.minseok.shopsystem.commands.*;
+import me.minseok.shopsystem.messaging.BalanceSyncPublisher;
+import me.minseok.shopsystem.session.PlayerDirectory;
+import me.minseok.shopsystem.session.PlayerSessionManager;
 import me.minseok.shopsystem.shop.ShopGUI;
 import me.minseok.shopsystem.shop.ShopManager;
 import net.milkbowl.vault.economy.Economy;
@@ -11,10 +29,26 @@ import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.logging.Level;
 
 public class ShopCore extends JavaPlugin {
 
+    private AuditLog auditLog;
     private DatabaseManager database;
+    private BalanceCache balanceCache;
+    private BalanceSyncPublisher balanceSync;
+    private BalanceLeaderboard leaderboard;
+    private EconomyExecutor economyExecutor;
+    private EconomyJournal journal;
+    private PlayerSessionManager sessions;
+    private PlayerDirectory playerDirectory;
+    private TransactionLogWriter transactionLog;
+    private TransactionCompactor compactor;
+    private PoolSizer poolSizer;
+    private DatabaseExecutor databaseExecutor;
+    private ReplicaMonitor replicaMonitor;
     private VaultEconomy economy;
     private ShopManager shopManager;
     private ShopGUI shopGUI;
@@ -33,15 +67,41 @@ public class ShopCore extends JavaPlugin {
         
         getLogger().info("Server Name: " + getConfig().getString("server-name", "unknown"));
 
-        // Initialize database
+        // Initialize audit log first so every later component can write to it
         FileConfiguration config = getConfig();
+        auditLog = new AuditLog(getLogger(), new File(getDataFolder(), config.getString("audit.folder", "audit")),
+                config.getInt("audit.buffer-size", 8192),
+                config.getLong("audit.max-file-mb", 32) * 1024 * 1024,
+                config.getInt("audit.console-echo-per-second", 5));
+        Level consoleLevel = parseLevel(config.getString("audit.console-level", "WARNING"), Level.WARNING);
+        for (AuditLog.Category category : AuditLog.Category.values()) {
+            String key = "audit.levels." + category.name().toLowerCase(Locale.ROOT);
+            auditLog.setLevels(category, parseLevel(config.getString(key, "INFO"), Level.INFO), consoleLevel);
+        }
+        if (config.getBoolean("audit.enabled", true)) {
+            auditLog.start();
+        }
+
+        // Initialize database
         database = new DatabaseManager(
-                config.getString("database.host", "localhost"),
-                config.getInt("database.port", 3306),
-                config.getString("database.database", "minecraft"),
-                config.getString("database.username", "root"),
-                config.getString("database.password", ""),
+                StorageBackend.fromConfig(config.getString("database.type", "mysql")),
+                new StorageBackend.Settings(
+                        config.getString("database.host", "localhost"),
+                        config.getInt("database.port", 3306),
+                        config.getString("database.database", "minecraft"),
+                        config.getString("database.username", "root"),
+                        config.getString("database.password", ""),
+                        getDataFolder(),
+                        config.getInt("database.pool.size", 0),
+                        config.getInt("database.pool.min-idle", -1)),
+                config.getLong("database.connection-timeout-ms", 5000),
+                config.getLong("database.pool.main-thread-timeout-ms", 1000),
                 getLogger());
+        if (config.getBoolean("database.profiling.enabled", true)) {
+            database.enableProfiling(new QueryProfiler(getLogger(),
+                    config.getLong("database.profiling.slow-query-ms", 50),
+                    config.getBoolean("database.profiling.warn-main-thread", true)));
+        }
 
         try {
             database.initialize();
@@ -52,8 +112,96 @@ public class ShopCore extends JavaPlugin {
             return;
         }
 
+        if (config.getBoolean("database.pool.adaptive.enabled", false)) {
+            poolSizer = new PoolSizer(database, getLogger(),
+                    config.getInt("database.pool.adaptive.min-size", 4),
+                    config.getInt("database.pool.adaptive.max-size", 20),
+                    config.getLong("database.pool.adaptive.target-wait-ms", 10));
+            poolSizer.start(this, config.getInt("database.pool.adaptive.interval-seconds", 30));
+        }
+
+        databaseExecutor = new DatabaseExecutor(this, database,
+                config.getInt("database.executor.max-in-flight", 0),
+                config.getInt("database.executor.queue-capacity", 1024));
+
+        if (config.getBoolean("database.replica.enabled", false)) {
+            database.attachReplica(new StorageBackend.Settings(
+                    config.getString("database.replica.host", "localhost"),
+                    config.getInt("database.replica.port", 3306),
+                    config.getString("database.database", "minecraft"),
+                    config.getString("database.replica.username", config.getString("database.username", "root")),
+                    config.getString("database.replica.password", config.getString("database.password", "")),
+                    getDataFolder(),
+                    config.getInt("database.replica.pool-size", 4),
+                    -1),
+                    config.getLong("database.connection-timeout-ms", 5000),
+                    config.getBoolean("database.replica.fallback-to-primary", true));
+            if (database.hasReplica()) {
+                replicaMonitor = new ReplicaMonitor(database, config.getString("server-name", "unknown"), getLogger(),
+                        config.getLong("database.replica.max-lag-ms", 2000));
+                replicaMonitor.start(databaseExecutor, config.getInt("database.replica.check-interval-seconds", 2));
+            }
+        }
+
         // Initialize economy
-        economy = new VaultEconomy(database, getLogger());
+        String serverName = config.getString("server-name", "unknown");
+        balanceSync = new BalanceSyncPublisher(this, serverName);
+        leaderboard = new BalanceLeaderboard(getLogger());
+        balanceSync.setListener(leaderboard::update);
+        databaseExecutor.execute(DatabaseExecutor.Lane.BACKGROUND, () -> leaderboard.load(database));
+        journal = new EconomyJournal(database, getLogger(),
+                new File(getDataFolder(), config.getString("economy.journal.file", "economy.journal")),
+                serverName,
+                config.getBoolean("economy.journal.enabled", true),
+                config.getInt("economy.journal.capacity-mb", 16) * 1024 * 1024,
+                config.getLong("economy.journal.fsync-interval-ms", 5),
+                config.getInt("economy.journal.replay-batch-size", 256),
+                config.getLong("economy.journal.retry-interval-ms", 1000));
+        balanceCache = new BalanceCache(database, balanceSync, journal, getLogger(),
+                config.getInt("economy.cache.max-dirty", 1024));
+        journal.setListener((uuid, delta, balance, version) -> {
+            balanceCache.settleJournal(uuid, delta, balance, version);
+            if (version > 0) {
+                balanceSync.publish(uuid, balance, version);
+            }
+        });
+        try {
+            journal.start();
+        } catch (IOException e) {
+            getLogger().severe("Failed to open economy journal, continuing without it: " + e.getMessage());
+        }
+        balanceCache.start(databaseExecutor, config.getInt("economy.cache.flush-interval", 2));
+        transactionLog = new TransactionLogWriter(database, journal, getLogger(),
+                config.getInt("economy.transaction-log.queue-size", 8192),
+                config.getInt("economy.transaction-log.batch-size", 500),
+                config.getLong("economy.transaction-log.flush-interval-ms", 250));
+        transactionLog.start();
+        if (config.getBoolean("economy.compaction.enabled", true)) {
+            compactor = new TransactionCompactor(database, getLogger(),
+                    config.getInt("economy.compaction.retention-days", 30),
+                    config.getInt("economy.compaction.chunk-size", 1000),
+                    config.getLong("economy.compaction.pause-ms", 50));
+            compactor.start(databaseExecutor, config.getInt("economy.compaction.interval-minutes", 60));
+        }
+        AccountLocks accountLocks = new AccountLocks(config.getInt("economy.lock-stripes", 64));
+        AccountIndex accountIndex = new AccountIndex(getLogger());
+        databaseExecutor.execute(DatabaseExecutor.Lane.BACKGROUND, () -> accountIndex.load(database));
+        economyExecutor = new EconomyExecutor(this, databaseExecutor);
+        EconomyMetrics metrics = new EconomyMetrics(getLogger(), config.getBoolean("economy.metrics.enabled", true));
+        metrics.startSummary(this, config.getInt("economy.metrics.summary-interval", 300));
+        economy = new VaultEconomy(database, balanceCache, accountLocks, accountIndex, balanceSync, economyExecutor,
+                transactionLog, journal, metrics, auditLog, config.getBoolean("economy.cache.write-behind", true), getLogger());
+
+        sessions = new PlayerSessionManager(database, databaseExecutor, balanceCache, accountIndex, getLogger());
+        playerDirectory = new PlayerDirectory(database, getLogger(), config.getInt("player-names.cache-size", 10000));
+        playerDirectory.start(databaseExecutor, config.getInt("player-names.flush-interval", 5));
+
+        // Load sessions for players already online (e.g. after /reload)
+        for (org.bukkit.entity.Player online : getServer().getOnlinePlayers()) {
+            java.util.UUID uuid = online.getUniqueId();
+            playerDirectory.record(uuid, online.getName());
+            databaseExecutor.execute(DatabaseExecutor.Lane.PLAYER, () -> sessions.load(uuid));
+        }
 
         // Register Vault economy provider
         if (getServer().getPluginManager().getPlugin("Vault") != null) {
@@ -68,7 +216,7 @@ public class ShopCore extends JavaPlugin {
         }
 
         // Initialize shop system
-        shopManager = new ShopManager(getDataFolder(), getLogger(), database, this);
+        shopManager = new ShopManager(getDataFolder(), getLogger(), database, databaseExecutor, this, auditLog);
         shopManager.loadConfig(getConfig());
         shopManager.loadShops();
 
@@ -76,30 +224,40 @@ public class ShopCore extends JavaPlugin {
         getServer().getMessenger().registerIncomingPluginChannel(this, "shopsystem:sync",
                 new me.minseok.shopsystem.messaging.BackendMessageListener(this));
         getServer().getMessenger().registerOutgoingPluginChannel(this, "shopsystem:sync");
+        balanceSync.start();
         getServer().getMessenger().registerOutgoingPluginChannel(this, "BungeeCord");
 
         // Register economy commands
-        getCommand("balance").setExecutor(new BalanceCommand(economy));
-        getCommand("pay").setExecutor(new PayCommand(economy));
-        getCommand("baltop").setExecutor(new BaltopCommand(database));
-        getCommand("eco").setExecutor(new EcoCommand(economy));
+        TargetResolver targetResolver = new TargetResolver(economyExecutor, playerDirectory,
+                config.getInt("economy.command-concurrency", 16));
+        getCommand("balance").setExecutor(new BalanceCommand(economy, targetResolver));
+        PayCommand payCmd = new PayCommand(economy, playerDirectory, targetResolver);
+        getCommand("pay").setExecutor(payCmd);
+        getCommand("pay").setTabCompleter(payCmd);
+        getCommand("baltop").setExecutor(new BaltopCommand(this, databaseExecutor, leaderboard, playerDirectory));
+        EcoCommand ecoCmd = new EcoCommand(economy, playerDirectory, targetResolver);
+        getCommand("eco").setExecutor(ecoCmd);
+        getCommand("eco").setTabCompleter(ecoCmd);
+        ShopStatsCommand statsCmd = new ShopStatsCommand(this);
+        getCommand("shopstats").setExecutor(statsCmd);
+        getCommand("shopstats").setTabCompleter(statsCmd);
 
-        shopGUI = new ShopGUI(shopManager, economy);
-        ShopCommand shopCmd = new ShopCommand(shopGUI, shopManager);
+        shopGUI = new ShopGUI(shopManager, economy, sessions);
+        ShopCommand shopCmd = new ShopCommand(this, databaseExecutor, shopGUI, shopManager);
         getCommand("shop").setExecutor(shopCmd);
         getCommand("shop").setTabCompleter(shopCmd);
 
         // Register listeners
         getServer().getPluginManager().registerEvents(shopGUI, this);
-        getServer().getPluginManager()
-                .registerEvents(new me.minseok.shopsystem.listeners.PlayerJoinListener(shopManager), this);
+        getServer().getPluginManager().registerEvents(
+                new me.minseok.shopsystem.listeners.PlayerSessionListener(databaseExecutor, getLogger(), sessions,
+                        playerDirectory, shopManager), this);
 
         // Schedule auto-refresh task
         int refreshInterval = getConfig().getInt("dynamic-pricing.auto-refresh-interval", 10);
         if (refreshInterval > 0) {
-            getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
-                shopManager.refreshPrices();
-            }, 20L * refreshInterval, 20L * refreshInterval);
+            databaseExecutor.repeat(DatabaseExecutor.Lane.BACKGROUND, shopManager::refreshPrices,
+                    20L * refreshInterval, 20L * refreshInterval);
             getLogger().info("Auto-refresh task scheduled every " + refreshInterval + " seconds.");
         }
 
@@ -122,15 +280,10 @@ public class ShopCore extends JavaPlugin {
         // Register listeners
         getServer().getPluginManager().registerEvents(sellGUICmd, this);
 
-        // Register sync listener and force refresh on join
+        // Register sync listener (prices are refreshed during pre-login by PlayerSessionListener)
         getServer().getPluginManager().registerEvents(new org.bukkit.event.Listener() {
             @org.bukkit.event.EventHandler
             public void onPlayerJoin(org.bukkit.event.player.PlayerJoinEvent event) {
-                // Force refresh prices on join
-                getServer().getScheduler().runTaskAsynchronously(ShopCore.this, () -> {
-                    shopManager.refreshPrices();
-                });
-
                 if (getServer().getOnlinePlayers().size() == 1) {
                     sendSyncRequest(event.getPlayer());
                 }
@@ -156,11 +309,20 @@ public class ShopCore extends JavaPlugin {
         }
         
         // 데이터베이스 설정 검증
+        String dbType = config.getString("database.type", "mysql");
         String dbHost = config.getString("database.host");
         String dbName = config.getString("database.database");
         String dbUser = config.getString("database.username");
-        
-        if (dbHost == null || dbHost.isEmpty()) {
+        boolean embedded = false;
+
+        try {
+            embedded = !StorageBackend.fromConfig(dbType).isShared();
+        } catch (IllegalArgumentException e) {
+            getLogger().warning("Invalid database.type: " + dbType + " (expected mysql, h2 or memory)");
+            isValid = false;
+        }
+        // Embedded storage only needs a database name
+        if (!embedded && (dbHost == null || dbHost.isEmpty())) {
             getLogger().warning("Missing required config: database.host");
             isValid = false;
         }
@@ -168,7 +330,7 @@ public class ShopCore extends JavaPlugin {
             getLogger().warning("Missing required config: database.database");
             isValid = false;
         }
-        if (dbUser == null || dbUser.isEmpty()) {
+        if (!embedded && (dbUser == null || dbUser.isEmpty())) {
             getLogger().warning("Missing required config: database.username");
             isValid = false;
         }
@@ -189,6 +351,15 @@ public class ShopCore extends JavaPlugin {
         return isValid;
     }
 
+    private Level parseLevel(String name, Level fallback) {
+        try {
+            return Level.parse(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            getLogger().warning("Invalid audit level '" + name + "', using " + fallback.getName());
+            return fallback;
+        }
+    }
+
     public void requestSync() {
         if (getServer().getOnlinePlayers().isEmpty()) {
             return;
@@ -207,9 +378,36 @@ public class ShopCore extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        if (databaseExecutor != null) {
+            // Let queued and in-flight purchases/sales finish before the final cache flush
+            databaseExecutor.shutdown(getConfig().getLong("database.executor.shutdown-timeout-ms", 10000));
+        }
+        if (balanceCache != null) {
+            balanceCache.flushAll();
+        }
+        if (balanceSync != null) {
+            // Players are still connected during disable, so the final flush can reach the other servers
+            balanceSync.drain();
+        }
+        if (compactor != null) {
+            compactor.stop();
+        }
+        if (transactionLog != null) {
+            transactionLog.close();
+        }
+        if (journal != null) {
+            // Cache and transaction log may have spilled into the journal above
+            journal.close();
+        }
+        if (playerDirectory != null) {
+            playerDirectory.flush();
+        }
         if (database != null) {
             database.close();
         }
+        if (auditLog != null) {
+            auditLog.close();
+        }
         getLogger().info("ShopCore disabled");
     }
 
@@ -219,6 +417,48 @@ public class ShopCore extends JavaPlugin {
         return database;
     }
 
+    public DatabaseExecutor getDatabaseExecutor() {
+        return databaseExecutor;
+    }
+
+    public BalanceCache getBalanceCache() {
+        return balanceCache;
+    }
+
+    public BalanceSyncPublisher getBalanceSync() {
+        return balanceSync;
+    }
+
+    public AuditLog getAuditLog() {
+        return auditLog;
+    }
+
+    public TransactionCompactor getCompactor() {
+        return compactor;
+    }
+
+    /**
+     * @return 풀 크기 자동 조절기, 사용하지 않으면 null
+     */
+    public PoolSizer getPoolSizer() {
+        return poolSizer;
+    }
+
+    /**
+     * @return 읽기 복제본 지연 측정기, 복제본을 사용하지 않으면 null
+     */
+    public ReplicaMonitor getReplicaMonitor() {
+        return replicaMonitor;
+    }
+
+    public BalanceLeaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    public PlayerDirectory getPlayerDirectory() {
+        return playerDirectory;
+    }
+
     public VaultEconomy getEconomy() {
         return economy;
     }
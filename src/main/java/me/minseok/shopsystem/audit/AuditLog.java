@@ -0,0 +1,326 @@
+package me.minseok.shopsystem.audit;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 경제/가격/메시지 이벤트용 구조화 감사 로그
+ * 호출 스레드는 링 버퍼 슬롯 하나만 확보하고, 문자열 조립과 파일 쓰기는 전용 스레드가 처리합니다.
+ * 파일은 날짜별(audit-yyyy-MM-dd.log)로, 크기를 넘으면 번호를 붙여 나눕니다. 콘솔에는 분류별로 초당 몇 건만 출력합니다.
+ */
+public class AuditLog {
+
+    public enum Category {
+        ECONOMY,
+        PRICING,
+        MESSAGING
+    }
+
+    private final Logger logger;
+    private final File folder;
+    private final long maxFileBytes;
+    private final int consoleEchoPerSecond;
+    private final Map<Category, Level> levels = new EnumMap<>(Category.class);
+    private final Map<Category, Level> consoleLevels = new EnumMap<>(Category.class);
+
+    // Multi-producer ring buffer: claim via CAS on tail, publish via the slot's sequence
+    private final Event[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    // Console rate limiting, touched only by the writer thread
+    private final long[] echoWindow = new long[Category.values().length];
+    private final int[] echoCount = new int[Category.values().length];
+    private final int[] echoSuppressed = new int[Category.values().length];
+
+    private volatile boolean running;
+    private Thread worker;
+    private BufferedWriter out;
+    private LocalDate currentDate;
+    private File currentFile;
+    private long currentBytes;
+
+    /**
+     * @param capacity             링 버퍼 크기 (2의 거듭제곱으로 올림); 가득 차면 새 이벤트는 버려집니다
+     * @param maxFileBytes         파일 하나의 최대 크기
+     * @param consoleEchoPerSecond 분류별 초당 콘솔 출력 수 (0이면 콘솔 출력 안 함)
+     */
+    public AuditLog(Logger logger, File folder, int capacity, long maxFileBytes, int consoleEchoPerSecond) {
+        this.logger = logger;
+        this.folder = folder;
+        this.maxFileBytes = Math.max(64 * 1024, maxFileBytes);
+        this.consoleEchoPerSecond = Math.max(0, consoleEchoPerSecond);
+
+        int size = Integer.highestOneBit(Math.max(1024, capacity) - 1) << 1;
+        this.slots = new Event[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Event();
+            published.set(i, -1);
+        }
+        for (Category category : Category.values()) {
+            levels.put(category, Level.INFO);
+            consoleLevels.put(category, Level.WARNING);
+        }
+    }
+
+    /**
+     * 분류별 파일 기록 레벨과 콘솔 출력 레벨을 정합니다 (start 전에 호출)
+     */
+    public void setLevels(Category category, Level fileLevel, Level consoleLevel) {
+        levels.put(category, fileLevel);
+        consoleLevels.put(category, consoleLevel);
+    }
+
+    public void start() {
+        if (!folder.exists() && !folder.mkdirs()) {
+            logger.log(Level.WARNING, "Could not create audit log folder " + folder);
+        }
+        running = true;
+        worker = new Thread(this::run, "ShopCore-Audit");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 이 분류에서 해당 레벨을 기록하는지 (인자를 만들기 전에 확인용)
+     */
+    public boolean isEnabled(Category category, Level level) {
+        Level threshold = levels.get(category);
+        return level.intValue() >= threshold.intValue() && threshold != Level.OFF;
+    }
+
+    /**
+     * 이벤트를 기록합니다
+     *
+     * @param event  이벤트 이름 (예: withdraw)
+     * @param fields 키, 값 순서로 번갈아 넣은 필드
+     */
+    public void log(Category category, Level level, String event, Object... fields) {
+        if (!running || !isEnabled(category, level)) {
+            return;
+        }
+
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head >= slots.length) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!tail.compareAndSet(seq, seq + 1));
+
+        Event slot = slots[(int) (seq & mask)];
+        slot.timestamp = System.currentTimeMillis();
+        slot.category = category;
+        slot.level = level;
+        slot.event = event;
+        slot.fields = fields;
+        published.lazySet((int) (seq & mask), seq);
+    }
+
+    /**
+     * 남은 이벤트를 모두 기록하고 파일을 닫습니다
+     */
+    public void close() {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+            try {
+                worker.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+        closeFile();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getSuppressed() {
+        return suppressed.get();
+    }
+
+    public int getBacklog() {
+        return (int) (tail.get() - head);
+    }
+
+    private void run() {
+        while (running) {
+            if (drain() == 0) {
+                flushFile();
+                LockSupport.parkNanos(20_000_000L);
+            }
+        }
+    }
+
+    /**
+     * 게시된 이벤트를 순서대로 기록합니다 (작업 스레드 또는 종료 시에만 호출)
+     *
+     * @return 기록한 이벤트 수
+     */
+    private int drain() {
+        int count = 0;
+        long seq = head;
+        while (seq < tail.get()) {
+            int index = (int) (seq & mask);
+            if (published.get(index) != seq) {
+                // Claimed but not yet filled in; pick it up on the next pass
+                break;
+            }
+
+            Event slot = slots[index];
+            String line = format(slot);
+            long timestamp = slot.timestamp;
+            Category category = slot.category;
+            Level level = slot.level;
+            slot.fields = null;
+
+            // Hand the slot back before the slow part
+            seq++;
+            head = seq;
+
+            write(line, timestamp);
+            echo(category, level, line);
+            count++;
+        }
+        return count;
+    }
+
+    private String format(Event slot) {
+        StringBuilder line = new StringBuilder(128);
+        line.append(Instant.ofEpochMilli(slot.timestamp)).append(' ')
+                .append(slot.category).append(' ')
+                .append(slot.level.getName()).append(' ')
+                .append(slot.event);
+
+        Object[] fields = slot.fields;
+        if (fields != null) {
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                line.append(' ').append(fields[i]).append('=').append(fields[i + 1]);
+            }
+        }
+        return line.toString();
+    }
+
+    private void write(String line, long timestamp) {
+        try {
+            LocalDate date = Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDate();
+            if (out == null || !date.equals(currentDate) || currentBytes >= maxFileBytes) {
+                roll(date);
+            }
+            out.write(line);
+            out.newLine();
+            currentBytes += line.length() + 1;
+            written.incrementAndGet();
+        } catch (IOException e) {
+            dropped.incrementAndGet();
+            logger.log(Level.WARNING, "Failed to write audit log: " + e.getMessage());
+            closeFile();
+        }
+    }
+
+    private void roll(LocalDate date) throws IOException {
+        closeFile();
+        currentDate = date;
+
+        // audit-2024-01-01.log, then audit-2024-01-01.1.log, .2.log ... once the size limit is hit
+        String base = "audit-" + date;
+        File file = new File(folder, base + ".log");
+        for (int part = 1; file.exists() && file.length() >= maxFileBytes; part++) {
+            file = new File(folder, base + "." + part + ".log");
+        }
+
+        currentFile = file;
+        currentBytes = file.exists() ? file.length() : 0;
+        out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    private void flushFile() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to flush audit log " + currentFile + ": " + e.getMessage());
+        }
+    }
+
+    private void closeFile() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to close audit log " + currentFile + ": " + e.getMessage());
+        }
+        out = null;
+    }
+
+    private void echo(Category category, Level level, String line) {
+        Level threshold = consoleLevels.get(category);
+        if (consoleEchoPerSecond == 0 || threshold == Level.OFF || level.intValue() < threshold.intValue()) {
+            return;
+        }
+
+        int index = category.ordinal();
+        long window = System.currentTimeMillis() / 1000;
+        if (window != echoWindow[index]) {
+            if (echoSuppressed[index] > 0) {
+                logger.log(Level.INFO, "[Audit] " + echoSuppressed[index] + " "
+                        + category.name().toLowerCase(Locale.ROOT) + " events not echoed (see audit log)");
+            }
+            echoWindow[index] = window;
+            echoCount[index] = 0;
+            echoSuppressed[index] = 0;
+        }
+
+        if (echoCount[index] >= consoleEchoPerSecond) {
+            echoSuppressed[index]++;
+            suppressed.incrementAndGet();
+            return;
+        }
+        echoCount[index]++;
+        logger.log(level, "[Audit] " + line);
+    }
+
+    private static final class Event {
+        private long timestamp;
+        private Category category;
+        private Level level;
+        private String event;
+        private Object[] fields;
+    }
+}
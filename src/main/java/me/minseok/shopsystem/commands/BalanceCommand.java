@@ -1,7 +1,6 @@
 package me.minseok.shopsystem.commands;
 
 import me.minseok.shopsystem.economy.VaultEconomy;
-import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -10,9 +9,11 @@ import org.bukkit.entity.Player;
 public class BalanceCommand implements CommandExecutor {
 
     private final VaultEconomy economy;
+    private final TargetResolver resolver;
 
-    public BalanceCommand(VaultEconomy economy) {
+    public BalanceCommand(VaultEconomy economy, TargetResolver resolver) {
         this.economy = economy;
+        this.resolver = resolver;
     }
 
     @Override
@@ -25,19 +26,14 @@ public class BalanceCommand implements CommandExecutor {
             }
 
             Player player = (Player) sender;
-            double balance = economy.getBalance(player);
-            sender.sendMessage("§a💰 잔액: §f" + economy.format(balance));
+            economy.onMain(economy.balanceAsync(player.getUniqueId()),
+                    balance -> sender.sendMessage("§a💰 잔액: §f" + economy.format(balance)));
 
         } else if (args.length == 1) {
-            // Check other player's balance
-            Player target = Bukkit.getPlayer(args[0]);
-            if (target == null) {
-                sender.sendMessage("§c플레이어를 찾을 수 없습니다: " + args[0]);
-                return true;
-            }
-
-            double balance = economy.getBalance(target);
-            sender.sendMessage("§a" + target.getName() + "의 잔액: §f" + economy.format(balance));
+            // Check other player's balance (online here, elsewhere on the network, or offline)
+            resolver.withTarget(sender, args[0], target -> economy.balanceAsync(target.getUuid()),
+                    (target, balance) -> sender.sendMessage("§a" + target.getName() + "의 잔액: §f"
+                            + economy.format(balance)));
 
         } else {
             sender.sendMessage("§c사용법: /balance [플레이어]");
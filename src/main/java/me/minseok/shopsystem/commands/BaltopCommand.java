@@ -1,24 +1,35 @@
 package me.minseok.shopsystem.commands;
 
-import me.minseok.shopsystem.database.DatabaseManager;
+import me.minseok.shopsystem.database.DatabaseExecutor;
+import me.minseok.shopsystem.economy.BalanceLeaderboard;
+import me.minseok.shopsystem.economy.Money;
+import me.minseok.shopsystem.session.PlayerDirectory;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public class BaltopCommand implements CommandExecutor {
 
-    private final DatabaseManager database;
+    private final Plugin plugin;
+    private final DatabaseExecutor executor;
+    private final BalanceLeaderboard leaderboard;
+    private final PlayerDirectory directory;
     private static final int PER_PAGE = 10;
 
-    public BaltopCommand(DatabaseManager database) {
-        this.database = database;
+    public BaltopCommand(Plugin plugin, DatabaseExecutor executor, BalanceLeaderboard leaderboard,
+            PlayerDirectory directory) {
+        this.plugin = plugin;
+        this.executor = executor;
+        this.leaderboard = leaderboard;
+        this.directory = directory;
     }
 
     @Override
@@ -36,25 +47,73 @@ public class BaltopCommand implements CommandExecutor {
             }
         }
 
-        List<BalanceEntry> entries = getTopBalances(page);
+        if (!leaderboard.isLoaded()) {
+            sender.sendMessage("§c순위를 불러오는 중입니다. 잠시 후 다시 시도해주세요");
+            return true;
+        }
+
+        List<BalanceLeaderboard.Entry> entries = leaderboard.page((page - 1) * PER_PAGE, PER_PAGE);
         if (entries.isEmpty()) {
             sender.sendMessage("§c데이터가 없습니다");
             return true;
         }
 
-        sender.sendMessage("§e§l=== 💰 부자 순위 (" + page + "페이지) ===");
+        Map<UUID, String> names = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (BalanceLeaderboard.Entry entry : entries) {
+            String name = directory.getName(entry.getUuid());
+            if (name != null) {
+                names.put(entry.getUuid(), name);
+            } else {
+                missing.add(entry.getUuid());
+            }
+        }
 
-        int rank = (page - 1) * PER_PAGE + 1;
-        for (BalanceEntry entry : entries) {
-            String medal = getRankMedal(rank);
-            sender.sendMessage(String.format("§a%d. %s%s §f- §e%.2f원",
-                    rank, medal, entry.playerName, entry.balance));
-            rank++;
+        int shownPage = page;
+        if (missing.isEmpty()) {
+            showPage(sender, shownPage, entries, names);
+            return true;
         }
 
+        // Players not seen recently: read their names from player_names off the main thread
+        boolean queued = executor.execute(DatabaseExecutor.Lane.PLAYER, () -> {
+            Map<UUID, String> found = directory.lookupNames(missing);
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                names.putAll(found);
+                showPage(sender, shownPage, entries, names);
+            });
+        });
+        if (!queued) {
+            // Too busy to look the names up; the page is still useful with UUID prefixes
+            showPage(sender, shownPage, entries, names);
+        }
         return true;
     }
 
+    private void showPage(CommandSender sender, int page, List<BalanceLeaderboard.Entry> entries,
+            Map<UUID, String> names) {
+        int pages = (leaderboard.size() + PER_PAGE - 1) / PER_PAGE;
+        sender.sendMessage("§e§l=== 💰 부자 순위 (" + page + "/" + pages + "페이지) ===");
+
+        for (BalanceLeaderboard.Entry entry : entries) {
+            String medal = getRankMedal(entry.getRank());
+            String name = names.get(entry.getUuid());
+            if (name == null) {
+                name = entry.getUuid().toString().substring(0, 8); // Fallback to UUID prefix
+            }
+            sender.sendMessage(String.format("§a%d. %s%s §f- §e%s원",
+                    entry.getRank(), medal, name, Money.format(entry.getBalance())));
+        }
+
+        if (sender instanceof Player player) {
+            int rank = leaderboard.rankOf(player.getUniqueId());
+            if (rank > 0) {
+                sender.sendMessage(String.format("§7내 순위: §a%d위 §f- §e%s원",
+                        rank, Money.format(leaderboard.balanceOf(player.getUniqueId()))));
+            }
+        }
+    }
+
     private String getRankMedal(int rank) {
         return switch (rank) {
             case 1 -> "🥇 ";
@@ -63,55 +122,4 @@ public class BaltopCommand implements CommandExecutor {
             default -> "";
         };
     }
-
-    private List<BalanceEntry> getTopBalances(int page) {
-        List<BalanceEntry> entries = new ArrayList<>();
-        int offset = (page - 1) * PER_PAGE;
-
-        String sql = """
-                    SELECT b.uuid, b.balance, p.name
-                    FROM player_balances b
-                    LEFT JOIN (
-                        SELECT DISTINCT uuid, name
-                        FROM transactions
-                        WHERE name IS NOT NULL
-                    ) p ON b.uuid = p.uuid
-                    ORDER BY b.balance DESC
-                    LIMIT ? OFFSET ?
-                """;
-
-        try (Connection conn = database.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, PER_PAGE);
-            stmt.setInt(2, offset);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String uuid = rs.getString("uuid");
-                    double balance = rs.getDouble("balance");
-                    String name = rs.getString("name");
-
-                    if (name == null) {
-                        name = uuid.substring(0, 8); // Fallback to UUID prefix
-                    }
-
-                    entries.add(new BalanceEntry(name, balance));
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return entries;
-    }
-
-    private static class BalanceEntry {
-        String playerName;
-        double balance;
-
-        BalanceEntry(String playerName, double balance) {
-            this.playerName = playerName;
-            this.balance = balance;
-        }
-    }
 }
@@ -1,19 +1,34 @@
 package me.minseok.shopsystem.commands;
 
+import me.minseok.shopsystem.economy.EconomyResult;
+import me.minseok.shopsystem.economy.Money;
 import me.minseok.shopsystem.economy.VaultEconomy;
-import net.milkbowl.vault.economy.EconomyResponse;
+import me.minseok.shopsystem.session.PlayerDirectory;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
-public class EcoCommand implements CommandExecutor {
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class EcoCommand implements CommandExecutor, TabCompleter {
+
+    private static final String[] ACTIONS = { "give", "take", "set", "reset", "giveall" };
+    private static final int MAX_SUGGESTIONS = 20;
 
     private final VaultEconomy economy;
+    private final PlayerDirectory directory;
+    private final TargetResolver resolver;
 
-    public EcoCommand(VaultEconomy economy) {
+    public EcoCommand(VaultEconomy economy, PlayerDirectory directory, TargetResolver resolver) {
         this.economy = economy;
+        this.directory = directory;
+        this.resolver = resolver;
     }
 
     @Override
@@ -25,34 +40,37 @@ public class EcoCommand implements CommandExecutor {
 
         if (args.length < 2) {
             sender.sendMessage("§c사용법: /eco <give|take|set|reset> <플레이어> [금액]");
+            sender.sendMessage("§c사용법: /eco giveall <금액>");
             return true;
         }
 
         String action = args[0].toLowerCase();
-        Player target = Bukkit.getPlayer(args[1]);
-
-        if (target == null) {
-            sender.sendMessage("§c플레이어를 찾을 수 없습니다: " + args[1]);
+        if (action.equals("giveall")) {
+            giveAll(sender, args[1]);
             return true;
         }
 
+        // Targets may be offline or on another server; resolve them off the main thread
+        String targetArg = args[1];
         switch (action) {
             case "give" -> {
                 if (args.length < 3) {
                     sender.sendMessage("§c사용법: /eco give <플레이어> <금액>");
                     return true;
                 }
-                double amount = parseAmount(args[2], sender);
+                long amount = parseAmount(args[2], sender);
                 if (amount <= 0)
                     return true;
 
-                EconomyResponse response = economy.depositPlayer(target, amount);
-                if (response.transactionSuccess()) {
-                    sender.sendMessage("§a✓ " + target.getName() + "에게 " + economy.format(amount) + "을 지급했습니다");
-                    target.sendMessage("§a✓ " + economy.format(amount) + "을 받았습니다");
-                } else {
-                    sender.sendMessage("§c실패: " + response.errorMessage);
-                }
+                resolver.withTarget(sender, targetArg,
+                        target -> economy.depositAsync(target.getUuid(), amount, "DEPOSIT"), (target, result) -> {
+                            if (result.isSuccess()) {
+                                sender.sendMessage("§a✓ " + target.getName() + "에게 " + economy.format(amount) + "을 지급했습니다");
+                                notify(target, "§a✓ " + economy.format(amount) + "을 받았습니다");
+                            } else {
+                                sender.sendMessage("§c실패: " + result.getError());
+                            }
+                        });
             }
 
             case "take" -> {
@@ -60,17 +78,19 @@ public class EcoCommand implements CommandExecutor {
                     sender.sendMessage("§c사용법: /eco take <플레이어> <금액>");
                     return true;
                 }
-                double amount = parseAmount(args[2], sender);
+                long amount = parseAmount(args[2], sender);
                 if (amount <= 0)
                     return true;
 
-                EconomyResponse response = economy.withdrawPlayer(target, amount);
-                if (response.transactionSuccess()) {
-                    sender.sendMessage("§a✓ " + target.getName() + "으로부터 " + economy.format(amount) + "을 차감했습니다");
-                    target.sendMessage("§c- " + economy.format(amount) + "이 차감되었습니다");
-                } else {
-                    sender.sendMessage("§c실패: " + response.errorMessage);
-                }
+                resolver.withTarget(sender, targetArg,
+                        target -> economy.withdrawAsync(target.getUuid(), amount, "WITHDRAW"), (target, result) -> {
+                            if (result.isSuccess()) {
+                                sender.sendMessage("§a✓ " + target.getName() + "으로부터 " + economy.format(amount) + "을 차감했습니다");
+                                notify(target, "§c- " + economy.format(amount) + "이 차감되었습니다");
+                            } else {
+                                sender.sendMessage("§c실패: " + result.getError());
+                            }
+                        });
             }
 
             case "set" -> {
@@ -78,51 +98,93 @@ public class EcoCommand implements CommandExecutor {
                     sender.sendMessage("§c사용법: /eco set <플레이어> <금액>");
                     return true;
                 }
-                double amount = parseAmount(args[2], sender);
+                long amount = parseAmount(args[2], sender);
                 if (amount < 0)
                     return true;
 
-                double current = economy.getBalance(target);
-                EconomyResponse response;
-
-                if (amount > current) {
-                    response = economy.depositPlayer(target, amount - current);
-                } else {
-                    response = economy.withdrawPlayer(target, current - amount);
-                }
-
-                if (response.transactionSuccess()) {
-                    sender.sendMessage("§a✓ " + target.getName() + "의 잔액을 " + economy.format(amount) + "으로 설정했습니다");
-                    target.sendMessage("§e잔액이 " + economy.format(amount) + "으로 설정되었습니다");
-                } else {
-                    sender.sendMessage("§c실패: " + response.errorMessage);
-                }
+                resolver.withTarget(sender, targetArg, target -> economy.setBalanceAsync(target.getUuid(), amount),
+                        (target, result) -> {
+                            if (result.isSuccess()) {
+                                sender.sendMessage("§a✓ " + target.getName() + "의 잔액을 " + economy.format(amount) + "으로 설정했습니다");
+                                notify(target, "§e잔액이 " + economy.format(amount) + "으로 설정되었습니다");
+                            } else {
+                                sender.sendMessage("§c실패: " + result.getError());
+                            }
+                        });
             }
 
             case "reset" -> {
-                double current = economy.getBalance(target);
-                EconomyResponse response = economy.withdrawPlayer(target, current);
-
-                if (response.transactionSuccess()) {
-                    sender.sendMessage("§a✓ " + target.getName() + "의 잔액을 초기화했습니다");
-                    target.sendMessage("§e잔액이 초기화되었습니다");
-                } else {
-                    sender.sendMessage("§c실패: " + response.errorMessage);
-                }
+                resolver.withTarget(sender, targetArg, target -> economy.setBalanceAsync(target.getUuid(), 0),
+                        (target, result) -> {
+                            if (result.isSuccess()) {
+                                sender.sendMessage("§a✓ " + target.getName() + "의 잔액을 초기화했습니다");
+                                notify(target, "§e잔액이 초기화되었습니다");
+                            } else {
+                                sender.sendMessage("§c실패: " + result.getError());
+                            }
+                        });
             }
 
             default -> {
                 sender.sendMessage("§c알 수 없는 명령어: " + action);
-                sender.sendMessage("§c사용 가능: give, take, set, reset");
+                sender.sendMessage("§c사용 가능: give, take, set, reset, giveall");
             }
         }
 
         return true;
     }
 
-    private double parseAmount(String str, CommandSender sender) {
+    /**
+     * 접속 중인 모든 플레이어에게 지급합니다 (일괄 입금 한 번, 알림은 메인 스레드에서)
+     */
+    private void giveAll(CommandSender sender, String amountArg) {
+        long amount = parseAmount(amountArg, sender);
+        if (amount <= 0) {
+            return;
+        }
+
+        List<UUID> targets = new ArrayList<>();
+        for (Player online : Bukkit.getOnlinePlayers()) {
+            targets.add(online.getUniqueId());
+        }
+        if (targets.isEmpty()) {
+            sender.sendMessage("§c접속 중인 플레이어가 없습니다");
+            return;
+        }
+
+        economy.onMain(economy.depositAllAsync(targets, amount, "DEPOSIT"), results -> {
+            int paid = 0;
+            for (Map.Entry<UUID, EconomyResult> entry : results.entrySet()) {
+                if (!entry.getValue().isSuccess()) {
+                    continue;
+                }
+                paid++;
+                Player player = Bukkit.getPlayer(entry.getKey());
+                if (player != null) {
+                    player.sendMessage("§a✓ " + economy.format(amount) + "을 받았습니다");
+                }
+            }
+
+            sender.sendMessage("§a✓ " + paid + "명에게 " + economy.format(amount) + "씩 지급했습니다");
+            if (paid < results.size()) {
+                sender.sendMessage("§c" + (results.size() - paid) + "명은 지급에 실패했습니다 (로그 확인)");
+            }
+        }, error -> sender.sendMessage("§c실패: 데이터베이스 오류"));
+    }
+
+    /**
+     * 대상이 이 서버에 접속 중이면 알림을 보냅니다
+     */
+    private void notify(TargetResolver.Target target, String message) {
+        Player player = target.getOnlinePlayer();
+        if (player != null) {
+            player.sendMessage(message);
+        }
+    }
+
+    private long parseAmount(String str, CommandSender sender) {
         try {
-            double amount = Double.parseDouble(str);
+            long amount = Money.parse(str);
             if (amount < 0) {
                 sender.sendMessage("§c금액은 0 이상이어야 합니다");
                 return -1;
@@ -133,4 +195,23 @@ public class EcoCommand implements CommandExecutor {
             return -1;
         }
     }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        List<String> completions = new ArrayList<>();
+        if (!sender.hasPermission("shopsystem.eco.admin")) {
+            return completions;
+        }
+
+        if (args.length == 1) {
+            for (String action : ACTIONS) {
+                if (action.startsWith(args[0].toLowerCase())) {
+                    completions.add(action);
+                }
+            }
+        } else if (args.length == 2 && !args[0].equalsIgnoreCase("giveall")) {
+            completions.addAll(directory.complete(args[1], MAX_SUGGESTIONS));
+        }
+        return completions;
+    }
 }
@@ -1,19 +1,30 @@
 package me.minseok.shopsystem.commands;
 
+import me.minseok.shopsystem.economy.Money;
 import me.minseok.shopsystem.economy.VaultEconomy;
-import net.milkbowl.vault.economy.EconomyResponse;
-import org.bukkit.Bukkit;
+import me.minseok.shopsystem.session.PlayerDirectory;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
-public class PayCommand implements CommandExecutor {
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class PayCommand implements CommandExecutor, TabCompleter {
+
+    private static final int MAX_SUGGESTIONS = 20;
 
     private final VaultEconomy economy;
+    private final PlayerDirectory directory;
+    private final TargetResolver resolver;
 
-    public PayCommand(VaultEconomy economy) {
+    public PayCommand(VaultEconomy economy, PlayerDirectory directory, TargetResolver resolver) {
         this.economy = economy;
+        this.directory = directory;
+        this.resolver = resolver;
     }
 
     @Override
@@ -29,21 +40,14 @@ public class PayCommand implements CommandExecutor {
         }
 
         Player player = (Player) sender;
-        Player target = Bukkit.getPlayer(args[0]);
-
-        if (target == null) {
-            sender.sendMessage("§c플레이어를 찾을 수 없습니다: " + args[0]);
-            return true;
-        }
-
-        if (target.equals(player)) {
+        if (args[0].equalsIgnoreCase(player.getName())) {
             sender.sendMessage("§c자신에게 송금할 수 없습니다");
             return true;
         }
 
-        double amount;
+        long amount;
         try {
-            amount = Double.parseDouble(args[1]);
+            amount = Money.parse(args[1]);
             if (amount <= 0) {
                 sender.sendMessage("§c금액은 0보다 커야 합니다");
                 return true;
@@ -53,35 +57,35 @@ public class PayCommand implements CommandExecutor {
             return true;
         }
 
-        // Check if sender has enough money
-        if (!economy.has(player, amount)) {
-            sender.sendMessage("§c잔액이 부족합니다");
-            return true;
-        }
+        UUID from = player.getUniqueId();
 
-        // Withdraw from sender
-        EconomyResponse withdraw = economy.withdrawPlayer(player, amount);
-        if (!withdraw.transactionSuccess()) {
-            sender.sendMessage("§c송금 실패: " + withdraw.errorMessage);
-            return true;
-        }
-
-        // Deposit to target
-        EconomyResponse deposit = economy.depositPlayer(target, amount);
-        if (!deposit.transactionSuccess()) {
-            // Refund sender
-            economy.depositPlayer(player, amount);
-            sender.sendMessage("§c송금 실패: " + deposit.errorMessage);
-            return true;
-        }
+        // The receiver may be offline or on another server; find them and move the money in one DB
+        // transaction off the main thread, then report back on it
+        resolver.withTarget(sender, args[0], target -> economy.transferAsync(from, target.getUuid(), amount),
+                (target, result) -> {
+                    if (!result.isSuccess()) {
+                        player.sendMessage("§c잔액이 부족합니다");
+                        return;
+                    }
 
-        // Success messages
-        sender.sendMessage("§a✓ " + target.getName() + "에게 " + economy.format(amount) + "을 송금했습니다");
-        sender.sendMessage("§7잔액: " + economy.format(withdraw.balance));
+                    player.sendMessage("§a✓ " + target.getName() + "에게 " + economy.format(amount) + "을 송금했습니다");
+                    player.sendMessage("§7잔액: " + economy.format(result.getFromBalance()));
 
-        target.sendMessage("§a✓ " + player.getName() + "으로부터 " + economy.format(amount) + "을 받았습니다");
-        target.sendMessage("§7잔액: " + economy.format(deposit.balance));
+                    Player receiver = target.getOnlinePlayer();
+                    if (receiver != null) {
+                        receiver.sendMessage("§a✓ " + player.getName() + "으로부터 " + economy.format(amount) + "을 받았습니다");
+                        receiver.sendMessage("§7잔액: " + economy.format(result.getToBalance()));
+                    }
+                });
 
         return true;
     }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        if (args.length == 1) {
+            return directory.complete(args[0], MAX_SUGGESTIONS);
+        }
+        return new ArrayList<>();
+    }
 }
@@ -1,8 +1,9 @@
 package me.minseok.shopsystem.commands;
 
+import me.minseok.shopsystem.economy.Money;
 import me.minseok.shopsystem.economy.VaultEconomy;
+import me.minseok.shopsystem.shop.ItemRefund;
 import me.minseok.shopsystem.shop.ShopManager;
-import net.milkbowl.vault.economy.EconomyResponse;
 import org.bukkit.Material;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -84,28 +85,32 @@ public class SellAllCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        double totalValue = shopItem.getSellPrice() * totalAmount;
+        long totalValue = Money.times(shopItem.getSellPrice(), totalAmount);
 
         // Remove all matching items
         ItemStack toRemove = handItem.clone();
         toRemove.setAmount(totalAmount);
+        ItemStack refund = toRemove.clone();
         player.getInventory().removeItem(toRemove);
 
-        EconomyResponse response = economy.depositPlayer(player, totalValue);
-        if (response.transactionSuccess()) {
-            player.sendMessage("§a✓ " + handItem.getType().name() + " x" + totalAmount + "을(를) " +
-                    economy.format(totalValue) + "에 판매했습니다!");
-            player.sendMessage("§7잔액: " + economy.format(response.balance));
+        int soldAmount = totalAmount;
+        economy.onMain(economy.depositAsync(player.getUniqueId(), totalValue, "SALE"), result -> {
+            if (result.isSuccess()) {
+                player.sendMessage("§a✓ " + toRemove.getType().name() + " x" + soldAmount + "을(를) " +
+                        economy.format(totalValue) + "에 판매했습니다!");
+                player.sendMessage("§7잔액: " + economy.format(result.getBalance()));
 
-            if (shopItem.hasDynamicPricing()) {
-                shopManager.adjustPrice(shopItem, false, totalAmount);
+                if (shopItem.hasDynamicPricing()) {
+                    shopManager.adjustPrice(shopItem, false, soldAmount);
+                }
+            } else {
+                ItemRefund.giveBack(player, refund);
+                player.sendMessage("§c판매 실패: " + result.getError());
             }
-        } else {
-            ItemStack toAdd = handItem.clone();
-            toAdd.setAmount(totalAmount);
-            player.getInventory().addItem(toAdd);
-            player.sendMessage("§c판매 실패: " + response.errorMessage);
-        }
+        }, error -> {
+            ItemRefund.giveBack(player, refund);
+            player.sendMessage("§c판매 실패: 데이터베이스 오류 (아이템을 돌려드렸습니다)");
+        });
 
         return true;
     }
@@ -162,35 +167,40 @@ public class SellAllCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        double totalValue = shopItem.getSellPrice() * totalAmount;
+        long totalValue = Money.times(shopItem.getSellPrice(), totalAmount);
 
         // Remove items
+        List<ItemStack> refund = ItemRefund.copyOf(itemsToRemove);
         for (ItemStack is : itemsToRemove) {
             player.getInventory().removeItem(is);
         }
 
-        EconomyResponse response = economy.depositPlayer(player, totalValue);
-        if (response.transactionSuccess()) {
-            player.sendMessage("§a✓ " + shopItem.getId() + " x" + totalAmount + "을(를) " +
-                    economy.format(totalValue) + "에 판매했습니다!");
-            player.sendMessage("§7잔액: " + economy.format(response.balance));
+        ShopManager.ShopItem soldItem = shopItem;
+        int soldAmount = totalAmount;
+        economy.onMain(economy.depositAsync(player.getUniqueId(), totalValue, "SALE"), result -> {
+            if (result.isSuccess()) {
+                player.sendMessage("§a✓ " + soldItem.getId() + " x" + soldAmount + "을(를) " +
+                        economy.format(totalValue) + "에 판매했습니다!");
+                player.sendMessage("§7잔액: " + economy.format(result.getBalance()));
 
-            if (shopItem.hasDynamicPricing()) {
-                shopManager.adjustPrice(shopItem, false, totalAmount);
-            }
-        } else {
-            for (ItemStack is : itemsToRemove) {
-                player.getInventory().addItem(is);
+                if (soldItem.hasDynamicPricing()) {
+                    shopManager.adjustPrice(soldItem, false, soldAmount);
+                }
+            } else {
+                ItemRefund.giveBack(player, refund);
+                player.sendMessage("§c판매 실패: " + result.getError());
             }
-            player.sendMessage("§c판매 실패: " + response.errorMessage);
-        }
+        }, error -> {
+            ItemRefund.giveBack(player, refund);
+            player.sendMessage("§c판매 실패: 데이터베이스 오류 (아이템을 돌려드렸습니다)");
+        });
 
         return true;
     }
 
     private boolean sellAllItems(Player player) {
         Map<ShopManager.ShopItem, Integer> itemsToSell = new HashMap<>();
-        double totalValue = 0;
+        long totalValue = 0;
         List<ItemStack> itemsToRemove = new ArrayList<>();
 
         // Scan inventory for sellable items
@@ -210,7 +220,7 @@ public class SellAllCommand implements CommandExecutor, TabCompleter {
             }
 
             itemsToSell.put(shopItem, itemsToSell.getOrDefault(shopItem, 0) + item.getAmount());
-            totalValue += shopItem.getSellPrice() * item.getAmount();
+            totalValue = Money.add(totalValue, Money.times(shopItem.getSellPrice(), item.getAmount()));
             itemsToRemove.add(item);
         }
 
@@ -220,30 +230,34 @@ public class SellAllCommand implements CommandExecutor, TabCompleter {
         }
 
         // Remove items
+        List<ItemStack> refund = ItemRefund.copyOf(itemsToRemove);
         for (ItemStack is : itemsToRemove) {
             player.getInventory().removeItem(is);
         }
 
-        EconomyResponse response = economy.depositPlayer(player, totalValue);
-        if (response.transactionSuccess()) {
-            int totalItems = itemsToSell.values().stream().mapToInt(Integer::intValue).sum();
-            player.sendMessage("§a✓ " + totalItems + "개 아이템을 " +
-                    economy.format(totalValue) + "에 판매했습니다!");
-            player.sendMessage("§7잔액: " + economy.format(response.balance));
-
-            // Adjust prices for dynamic items
-            for (Map.Entry<ShopManager.ShopItem, Integer> entry : itemsToSell.entrySet()) {
-                ShopManager.ShopItem shopItem = entry.getKey();
-                if (shopItem.hasDynamicPricing()) {
-                    shopManager.adjustPrice(shopItem, false, entry.getValue());
+        long soldValue = totalValue;
+        economy.onMain(economy.depositAsync(player.getUniqueId(), soldValue, "SALE"), result -> {
+            if (result.isSuccess()) {
+                int totalItems = itemsToSell.values().stream().mapToInt(Integer::intValue).sum();
+                player.sendMessage("§a✓ " + totalItems + "개 아이템을 " +
+                        economy.format(soldValue) + "에 판매했습니다!");
+                player.sendMessage("§7잔액: " + economy.format(result.getBalance()));
+
+                // Adjust prices for dynamic items
+                for (Map.Entry<ShopManager.ShopItem, Integer> entry : itemsToSell.entrySet()) {
+                    ShopManager.ShopItem shopItem = entry.getKey();
+                    if (shopItem.hasDynamicPricing()) {
+                        shopManager.adjustPrice(shopItem, false, entry.getValue());
+                    }
                 }
+            } else {
+                ItemRefund.giveBack(player, refund);
+                player.sendMessage("§c판매 실패: " + result.getError());
             }
-        } else {
-            for (ItemStack is : itemsToRemove) {
-                player.getInventory().addItem(is);
-            }
-            player.sendMessage("§c판매 실패: " + response.errorMessage);
-        }
+        }, error -> {
+            ItemRefund.giveBack(player, refund);
+            player.sendMessage("§c판매 실패: 데이터베이스 오류 (아이템을 돌려드렸습니다)");
+        });
 
         return true;
     }
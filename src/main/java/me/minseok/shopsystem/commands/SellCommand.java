@@ -1,7 +1,8 @@
 package me.minseok.shopsystem.commands;
 
+import me.minseok.shopsystem.economy.Money;
 import me.minseok.shopsystem.economy.VaultEconomy;
-import net.milkbowl.vault.economy.EconomyResponse;
+import me.minseok.shopsystem.shop.ItemRefund;
 import org.bukkit.Material;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -36,24 +37,28 @@ public class SellCommand implements CommandExecutor {
         String itemName = handItem.getType().name();
 
         // Simple sell price calculation (you can customize this)
-        double basePrice = 10.0;
-        double totalPrice = basePrice * amount;
+        long basePrice = 10 * Money.MINOR_PER_MAJOR;
+        long totalPrice = Money.times(basePrice, amount);
 
         // Remove items
+        ItemStack refund = handItem.clone();
         player.getInventory().setItemInMainHand(null);
 
         // Give money
-        EconomyResponse response = economy.depositPlayer(player, totalPrice);
-
-        if (response.transactionSuccess()) {
-            player.sendMessage("§a✓ " + itemName + " x" + amount + "을(를) " +
-                    economy.format(totalPrice) + "에 판매했습니다!");
-            player.sendMessage("§7잔액: " + economy.format(response.balance));
-        } else {
-            // Refund items if transaction failed
-            player.getInventory().setItemInMainHand(handItem);
-            player.sendMessage("§c판매 실패: " + response.errorMessage);
-        }
+        economy.onMain(economy.depositAsync(player.getUniqueId(), totalPrice, "SALE"), result -> {
+            if (result.isSuccess()) {
+                player.sendMessage("§a✓ " + itemName + " x" + amount + "을(를) " +
+                        economy.format(totalPrice) + "에 판매했습니다!");
+                player.sendMessage("§7잔액: " + economy.format(result.getBalance()));
+            } else {
+                // Refund items if transaction failed (the hand may hold something else by now)
+                ItemRefund.giveBack(player, refund);
+                player.sendMessage("§c판매 실패: " + result.getError());
+            }
+        }, error -> {
+            ItemRefund.giveBack(player, refund);
+            player.sendMessage("§c판매 실패: 데이터베이스 오류 (아이템을 돌려드렸습니다)");
+        });
 
         return true;
     }
@@ -1,8 +1,9 @@
 package me.minseok.shopsystem.commands;
 
+import me.minseok.shopsystem.economy.Money;
 import me.minseok.shopsystem.economy.VaultEconomy;
+import me.minseok.shopsystem.shop.ItemRefund;
 import me.minseok.shopsystem.shop.ShopManager;
-import net.milkbowl.vault.economy.EconomyResponse;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.command.Command;
@@ -61,7 +62,7 @@ public class SellGUICommand implements CommandExecutor, Listener {
             List<String> lore = meta.hasLore() ? meta.getLore() : new ArrayList<>();
             lore.add("");
             lore.add("§c판매가: §f" + economy.format(shopItem.getSellPrice()));
-            lore.add("§7총 가치: §f" + economy.format(shopItem.getSellPrice() * item.getAmount()));
+            lore.add("§7총 가치: §f" + economy.format(Money.times(shopItem.getSellPrice(), item.getAmount())));
             lore.add("");
             lore.add("§e클릭하여 판매");
             meta.setLore(lore);
@@ -137,29 +138,32 @@ public class SellGUICommand implements CommandExecutor, Listener {
         }
 
         if (amount > 0) {
+            List<ItemStack> refund = ItemRefund.copyOf(itemsToRemove);
             for (ItemStack is : itemsToRemove) {
                 player.getInventory().removeItem(is);
             }
 
-            double totalPrice = shopItem.getSellPrice() * amount;
+            long totalPrice = Money.times(shopItem.getSellPrice(), amount);
 
-            EconomyResponse response = economy.depositPlayer(player, totalPrice);
-            if (response.transactionSuccess()) {
-                player.sendMessage("§a✓ " + shopItem.getId() + " x" + amount + "을(를) " +
-                        economy.format(totalPrice) + "에 판매했습니다!");
-                player.sendMessage("§7잔액: " + economy.format(response.balance));
-
-                if (shopItem.hasDynamicPricing()) {
-                    shopManager.adjustPrice(shopItem, false, amount);
-                }
-
-                player.closeInventory();
-            } else {
-                for (ItemStack is : itemsToRemove) {
-                    player.getInventory().addItem(is);
+            int soldAmount = amount;
+            player.closeInventory();
+            economy.onMain(economy.depositAsync(player.getUniqueId(), totalPrice, "SALE"), result -> {
+                if (result.isSuccess()) {
+                    player.sendMessage("§a✓ " + shopItem.getId() + " x" + soldAmount + "을(를) " +
+                            economy.format(totalPrice) + "에 판매했습니다!");
+                    player.sendMessage("§7잔액: " + economy.format(result.getBalance()));
+
+                    if (shopItem.hasDynamicPricing()) {
+                        shopManager.adjustPrice(shopItem, false, soldAmount);
+                    }
+                } else {
+                    ItemRefund.giveBack(player, refund);
+                    player.sendMessage("§c판매 실패: " + result.getError());
                 }
-                player.sendMessage("§c판매 실패: " + response.errorMessage);
-            }
+            }, error -> {
+                ItemRefund.giveBack(player, refund);
+                player.sendMessage("§c판매 실패: 데이터베이스 오류 (아이템을 돌려드렸습니다)");
+            });
         }
     }
 }
@@ -1,5 +1,7 @@
 package me.minseok.shopsystem.commands;
 
+import me.minseok.shopsystem.database.DatabaseExecutor;
+import me.minseok.shopsystem.economy.Money;
 import me.minseok.shopsystem.shop.ShopGUI;
 import me.minseok.shopsystem.shop.ShopManager;
 
@@ -8,18 +10,25 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class ShopCommand implements CommandExecutor, TabCompleter {
 
+    private final Plugin plugin;
+    private final DatabaseExecutor executor;
     private final ShopGUI shopGUI;
     private final ShopManager shopManager;
 
-    public ShopCommand(ShopGUI shopGUI, ShopManager shopManager) {
+    public ShopCommand(Plugin plugin, DatabaseExecutor executor, ShopGUI shopGUI, ShopManager shopManager) {
+        this.plugin = plugin;
+        this.executor = executor;
         this.shopGUI = shopGUI;
         this.shopManager = shopManager;
     }
@@ -120,12 +129,12 @@ public class ShopCommand implements CommandExecutor, TabCompleter {
 
         String itemName = args[1].toUpperCase();
         try {
-            double buyPrice = Double.parseDouble(args[2]);
-            double sellPrice = Double.parseDouble(args[3]);
+            long buyPrice = Money.parse(args[2]);
+            long sellPrice = Money.parse(args[3]);
 
             shopManager.updateItemPrice(itemName, buyPrice, sellPrice);
             sender.sendMessage("§a✓ " + itemName + "의 가격을 설정했습니다!");
-            sender.sendMessage("§7구매가: " + buyPrice + ", 판매가: " + sellPrice);
+            sender.sendMessage("§7구매가: " + Money.format(buyPrice) + ", 판매가: " + Money.format(sellPrice));
         } catch (NumberFormatException e) {
             sender.sendMessage("§c잘못된 숫자 형식입니다.");
         }
@@ -171,22 +180,25 @@ public class ShopCommand implements CommandExecutor, TabCompleter {
         }
 
         String itemName = args[1].toUpperCase();
-        List<Map<String, Object>> history = shopManager.getPriceHistory(itemName, 10);
+        onMain(sender, () -> shopManager.getPriceHistory(itemName, 10),
+                history -> showHistory(sender, itemName, history));
+        return true;
+    }
 
+    private void showHistory(CommandSender sender, String itemName, List<Map<String, Object>> history) {
         if (history.isEmpty()) {
             sender.sendMessage("§c가격 변동 기록이 없습니다.");
-            return true;
+            return;
         }
 
         sender.sendMessage("§e=== " + itemName + " 가격 변동 기록 ===");
         SimpleDateFormat sdf = new SimpleDateFormat("MM-dd HH:mm");
         for (Map<String, Object> record : history) {
-            double price = (double) record.get("price");
+            long price = (long) record.get("price");
             String reason = (String) record.get("reason");
             String timestamp = sdf.format(record.get("timestamp"));
-            sender.sendMessage("§7" + timestamp + " §f" + price + " §7(" + (reason != null ? reason : "자동") + ")");
+            sender.sendMessage("§7" + timestamp + " §f" + Money.format(price) + " §7(" + (reason != null ? reason : "자동") + ")");
         }
-        return true;
     }
 
     private boolean handleStats(CommandSender sender) {
@@ -195,7 +207,11 @@ public class ShopCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        Map<String, Integer> popular = shopManager.getPopularItems(10);
+        onMain(sender, () -> shopManager.getPopularItems(10), popular -> showStats(sender, popular));
+        return true;
+    }
+
+    private void showStats(CommandSender sender, Map<String, Integer> popular) {
         sender.sendMessage("§e=== 상점 통계 ===");
         sender.sendMessage("§7총 카테고리: §f" + shopManager.getCategories().size());
         sender.sendMessage("§7인기 아이템 TOP 10:");
@@ -203,14 +219,17 @@ public class ShopCommand implements CommandExecutor, TabCompleter {
         for (Map.Entry<String, Integer> entry : popular.entrySet()) {
             sender.sendMessage("§f" + rank++ + ". §7" + entry.getKey() + " §f(" + entry.getValue() + " 거래)");
         }
-        return true;
     }
 
     private boolean handlePopular(CommandSender sender) {
-        Map<String, Integer> popular = shopManager.getPopularItems(10);
+        onMain(sender, () -> shopManager.getPopularItems(10), popular -> showPopular(sender, popular));
+        return true;
+    }
+
+    private void showPopular(CommandSender sender, Map<String, Integer> popular) {
         if (popular == null || popular.isEmpty()) {
             sender.sendMessage("§c인기 아이템 데이터가 없습니다.");
-            return true;
+            return;
         }
 
         sender.sendMessage("§e=== 인기 아이템 TOP 10 ===");
@@ -228,7 +247,19 @@ public class ShopCommand implements CommandExecutor, TabCompleter {
                         " " + trend + " §f" + String.format("%.1f%%", Math.abs(priceChange)));
             }
         }
-        return true;
+    }
+
+    /**
+     * 조회는 DB 실행기에서 하고 결과 출력은 메인 스레드에서 합니다
+     */
+    private <T> void onMain(CommandSender sender, Supplier<T> query, Consumer<T> show) {
+        boolean queued = executor.execute(DatabaseExecutor.Lane.PLAYER, () -> {
+            T result = query.get();
+            plugin.getServer().getScheduler().runTask(plugin, () -> show.accept(result));
+        });
+        if (!queued) {
+            sender.sendMessage("§c요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요");
+        }
     }
 
     private boolean handleSearch(CommandSender sender, String[] args) {
@@ -271,8 +302,8 @@ public class ShopCommand implements CommandExecutor, TabCompleter {
 
         sender.sendMessage("§e=== 검색 결과: " + query + " ===");
         for (ShopManager.ShopItem item : results) {
-            sender.sendMessage("§f- " + item.getId() + " §7(구매: " + item.getBuyPrice() + ", 판매: "
-                    + item.getSellPrice() + ")");
+            sender.sendMessage("§f- " + item.getId() + " §7(구매: " + Money.format(item.getBuyPrice()) + ", 판매: "
+                    + Money.format(item.getSellPrice()) + ")");
         }
         return true;
     }
@@ -0,0 +1,286 @@
+package me.minseok.shopsystem.commands;
+
+import me.minseok.shopsystem.ShopCore;
+import me.minseok.shopsystem.audit.AuditLog;
+import me.minseok.shopsystem.database.DatabaseExecutor;
+import me.minseok.shopsystem.database.DatabaseManager;
+import me.minseok.shopsystem.database.PoolMetrics;
+import me.minseok.shopsystem.database.PoolSizer;
+import me.minseok.shopsystem.database.QueryProfiler;
+import me.minseok.shopsystem.database.ReplicaMonitor;
+import me.minseok.shopsystem.economy.AccountLocks;
+import me.minseok.shopsystem.economy.BalanceCache;
+import me.minseok.shopsystem.economy.EconomyJournal;
+import me.minseok.shopsystem.economy.EconomyMetrics;
+import me.minseok.shopsystem.economy.EconomyResult;
+import me.minseok.shopsystem.economy.LatencyHistogram;
+import me.minseok.shopsystem.economy.TransactionCompactor;
+import me.minseok.shopsystem.economy.TransactionLogWriter;
+import me.minseok.shopsystem.messaging.BalanceSyncPublisher;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShopStatsCommand implements CommandExecutor, TabCompleter {
+
+    private static final String[] SECTIONS = { "txlog", "locks", "sync", "journal", "metrics", "audit", "pool", "executor", "queries" };
+
+    private final ShopCore plugin;
+
+    public ShopStatsCommand(ShopCore plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (!sender.hasPermission("shopsystem.admin")) {
+            sender.sendMessage("§c권한이 없습니다.");
+            return true;
+        }
+
+        String section = args.length > 0 ? args[0].toLowerCase() : "all";
+        if (section.equals("queries") && args.length > 1) {
+            if (!handleQueries(sender, args[1])) {
+                sender.sendMessage("§c사용법: /shopstats queries [개수|reset]");
+            }
+        } else if (section.equals("all")) {
+            for (String name : SECTIONS) {
+                showSection(sender, name);
+            }
+        } else if (!showSection(sender, section)) {
+            sender.sendMessage("§c사용법: /shopstats [" + String.join("|", SECTIONS) + "]");
+        }
+        return true;
+    }
+
+    private boolean showSection(CommandSender sender, String section) {
+        switch (section) {
+            case "txlog" -> showTransactionLog(sender);
+            case "locks" -> showLocks(sender);
+            case "sync" -> showSync(sender);
+            case "journal" -> showJournal(sender);
+            case "metrics" -> showMetrics(sender);
+            case "audit" -> showAudit(sender);
+            case "pool" -> showPool(sender);
+            case "executor" -> showExecutor(sender);
+            case "queries" -> showQueries(sender, plugin.getConfig().getInt("database.profiling.report-size", 10));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void showTransactionLog(CommandSender sender) {
+        TransactionLogWriter log = plugin.getEconomy().getTransactionLog();
+        sender.sendMessage("§e=== 거래 기록 큐 ===");
+        sender.sendMessage("§7대기: §f" + log.getQueueSize() + "/" + log.getQueueCapacity()
+                + " §7(최대 " + log.getHighWaterMark() + ")");
+        sender.sendMessage("§7기록: §f" + log.getWritten() + " §7(배치 " + log.getBatches() + "회)");
+        sender.sendMessage("§7큐 초과: §f" + log.getOverflowed() + " §7저널로 이관: §f" + log.getJournaled()
+                + " §7실패: §f" + log.getFailed());
+
+        TransactionCompactor compactor = plugin.getCompactor();
+        if (compactor != null) {
+            sender.sendMessage("§7압축(" + compactor.getRetentionDays() + "일 이전): §f" + compactor.getCompacted()
+                    + "행 §7(" + compactor.getRuns() + "회, 청크 " + compactor.getChunks() + "개)");
+        }
+    }
+
+    private void showLocks(CommandSender sender) {
+        AccountLocks locks = plugin.getEconomy().getAccountLocks();
+        sender.sendMessage("§e=== 계정 락 ===");
+        sender.sendMessage("§7스트라이프: §f" + locks.getStripeCount() + " §7획득: §f" + locks.getAcquisitions()
+                + " §7경합: §f" + locks.getContended());
+        sender.sendMessage("§7대기 시간: §f" + locks.getTotalWaitMillis() + "ms §7(최대 " + locks.getMaxWaitMillis()
+                + "ms) §7최대 대기열: §f" + locks.getMaxDepth());
+
+        StringBuilder busy = new StringBuilder();
+        for (int i = 0; i < locks.getStripeCount(); i++) {
+            int depth = locks.getQueueDepth(i);
+            if (depth > 0) {
+                busy.append(" #").append(i).append('=').append(depth);
+            }
+        }
+        sender.sendMessage("§7현재 대기열:§f" + (busy.length() > 0 ? busy : " 없음"));
+    }
+
+    private void showSync(CommandSender sender) {
+        BalanceSyncPublisher sync = plugin.getBalanceSync();
+        BalanceCache cache = plugin.getBalanceCache();
+        sender.sendMessage("§e=== 서버 간 잔액 동기화 ===");
+        sender.sendMessage("§7발행: §f" + sync.getPublished() + " §7전송: §f" + sync.getSent() + " §7대기: §f"
+                + sync.getPendingCount() + " §7버림(접속자 없음): §f" + sync.getDropped());
+        sender.sendMessage("§7수신 반영: §f" + cache.getRemoteApplied() + " §7오래된 버전 무시: §f" + cache.getRemoteStale());
+    }
+
+    private void showJournal(CommandSender sender) {
+        EconomyJournal journal = plugin.getEconomy().getJournal();
+        sender.sendMessage("§e=== 경제 저널 ===");
+        if (!journal.isEnabled()) {
+            sender.sendMessage("§7비활성화됨");
+            return;
+        }
+        sender.sendMessage("§7상태: " + (journal.isDegraded() ? "§cDB 장애 (로컬 기록 중)" : "§a정상")
+                + " §7대기: §f" + journal.getPendingRecords() + "건");
+        sender.sendMessage("§7사용량: §f" + (journal.getUsedBytes() / 1024) + "KB/" + (journal.getCapacity() / 1024)
+                + "KB §7fsync: §f" + journal.getFsyncs() + "회");
+        sender.sendMessage("§7기록: §f" + journal.getAppended() + " §7반영: §f" + journal.getApplied()
+                + " §7거부(가득 참): §f" + journal.getRejected());
+    }
+
+    private void showMetrics(CommandSender sender) {
+        EconomyMetrics metrics = plugin.getEconomy().getMetrics();
+        sender.sendMessage("§e=== 경제 작업 지연 시간 ===");
+        if (!metrics.isEnabled()) {
+            sender.sendMessage("§7비활성화됨");
+            return;
+        }
+
+        boolean any = false;
+        for (EconomyMetrics.Operation operation : EconomyMetrics.Operation.values()) {
+            for (EconomyMetrics.Caller caller : EconomyMetrics.Caller.values()) {
+                LatencyHistogram.Snapshot snapshot = metrics.snapshot(operation, caller);
+                if (snapshot.getCount() == 0) {
+                    continue;
+                }
+                any = true;
+
+                long failed = snapshot.getCount()
+                        - metrics.getCount(operation, caller, EconomyResult.Status.SUCCESS);
+                sender.sendMessage("§f" + operation.name().toLowerCase() + " §7(" + caller.name().toLowerCase()
+                        + ") §f" + snapshot.getCount() + "회 §7실패: §f" + failed
+                        + " §7잔액부족: §f" + metrics.getCount(operation, caller, EconomyResult.Status.INSUFFICIENT_FUNDS)
+                        + " §7오류: §f" + metrics.getCount(operation, caller, EconomyResult.Status.ERROR));
+                sender.sendMessage("§7  평균 " + EconomyMetrics.formatMillis(snapshot.getMeanMicros())
+                        + " p50 " + EconomyMetrics.formatMillis(snapshot.percentileMicros(50))
+                        + " p99 " + EconomyMetrics.formatMillis(snapshot.percentileMicros(99))
+                        + " p99.9 " + EconomyMetrics.formatMillis(snapshot.percentileMicros(99.9))
+                        + " 최대 " + EconomyMetrics.formatMillis(snapshot.getMaxMicros()));
+            }
+        }
+        if (!any) {
+            sender.sendMessage("§7기록 없음");
+        }
+    }
+
+    private void showAudit(CommandSender sender) {
+        AuditLog audit = plugin.getAuditLog();
+        sender.sendMessage("§e=== 감사 로그 ===");
+        sender.sendMessage("§7기록: §f" + audit.getWritten() + " §7대기: §f" + audit.getBacklog()
+                + " §7버림(버퍼 가득 참): §f" + audit.getDropped());
+        sender.sendMessage("§7콘솔 출력 생략: §f" + audit.getSuppressed());
+    }
+
+    private void showPool(CommandSender sender) {
+        DatabaseManager database = plugin.getDatabase();
+        PoolMetrics pool = database.getPoolMetrics();
+        sender.sendMessage("§e=== 커넥션 풀 ===");
+        sender.sendMessage("§7크기: §f" + pool.getTotal() + "/" + database.getPoolSize() + " §7활성: §f" + pool.getActive()
+                + " §7유휴: §f" + pool.getIdle() + " §7대기 스레드: §f" + pool.getPending()
+                + " §7시간 초과: §f" + pool.getTimeouts());
+        showPoolLatency(sender, "획득 (메인)", pool.acquireSnapshot(true));
+        showPoolLatency(sender, "획득 (비동기)", pool.acquireSnapshot(false));
+        showPoolLatency(sender, "사용", pool.usageSnapshot());
+        showPoolLatency(sender, "생성", pool.creationSnapshot());
+
+        ReplicaMonitor replica = plugin.getReplicaMonitor();
+        if (replica != null) {
+            long lag = replica.getLagMillis();
+            sender.sendMessage("§7복제본: " + (database.isReplicaRoutable() ? "§a사용 중" : "§c주 DB로 우회")
+                    + " §7지연: §f" + (lag >= 0 ? lag + "ms" : "알 수 없음") + "/" + replica.getMaxLagMillis() + "ms"
+                    + " §7복제본 읽기: §f" + database.getReplicaReads() + " §7우회: §f" + database.getFallbackReads());
+        }
+
+        PoolSizer sizer = plugin.getPoolSizer();
+        if (sizer != null) {
+            sender.sendMessage("§7자동 조절: §f" + sizer.getMinSize() + "~" + sizer.getMaxSize() + " §7증가: §f"
+                    + sizer.getGrown() + "회 §7감소: §f" + sizer.getShrunk() + "회");
+        }
+    }
+
+    private void showExecutor(CommandSender sender) {
+        DatabaseExecutor executor = plugin.getDatabaseExecutor();
+        sender.sendMessage("§e=== DB 실행기 ===");
+        sender.sendMessage("§7실행 중: §f" + executor.getInFlight() + "/" + executor.getLimit() + " §7(최대 "
+                + executor.getPeakInFlight() + ") §7실패: §f" + executor.getFailed());
+        for (DatabaseExecutor.Lane lane : DatabaseExecutor.Lane.values()) {
+            LatencyHistogram.Snapshot wait = executor.queueWaitSnapshot(lane);
+            sender.sendMessage("§f" + lane.name().toLowerCase() + " §7대기: §f" + executor.getQueued(lane) + "/"
+                    + executor.getQueueCapacity() + " §7처리: §f" + executor.getSubmitted(lane) + " §7거부: §f"
+                    + executor.getRejected(lane) + " §7대기 시간 p99 " + EconomyMetrics.formatMillis(wait.percentileMicros(99))
+                    + " 최대 " + EconomyMetrics.formatMillis(wait.getMaxMicros()));
+        }
+    }
+
+    private boolean handleQueries(CommandSender sender, String arg) {
+        if (arg.equalsIgnoreCase("reset")) {
+            QueryProfiler profiler = plugin.getDatabase().getQueryProfiler();
+            if (profiler != null) {
+                profiler.reset();
+            }
+            sender.sendMessage("§a쿼리 통계를 초기화했습니다.");
+            return true;
+        }
+        try {
+            showQueries(sender, Math.max(1, Integer.parseInt(arg)));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void showQueries(CommandSender sender, int limit) {
+        QueryProfiler profiler = plugin.getDatabase().getQueryProfiler();
+        sender.sendMessage("§e=== 쿼리 ===");
+        if (profiler == null) {
+            sender.sendMessage("§7꺼져 있음 (database.profiling.enabled)");
+            return;
+        }
+        sender.sendMessage("§7템플릿: §f" + profiler.getTemplateCount() + " §7느린 쿼리 기준: §f"
+                + (profiler.getSlowQueryMillis() > 0 ? profiler.getSlowQueryMillis() + "ms" : "끔")
+                + " §7(총 실행 시간 순 상위 " + limit + "개)");
+        for (QueryProfiler.QueryStats query : profiler.top(limit)) {
+            LatencyHistogram.Snapshot latency = query.snapshot();
+            String template = query.getTemplate();
+            sender.sendMessage("§f" + (template.length() > 80 ? template.substring(0, 77) + "..." : template));
+            sender.sendMessage("  §7" + latency.getCount() + "회 §7합계 §f"
+                    + EconomyMetrics.formatMillis(query.getTotalMicros()) + " §7p50 "
+                    + EconomyMetrics.formatMillis(latency.percentileMicros(50)) + " p99 "
+                    + EconomyMetrics.formatMillis(latency.percentileMicros(99)) + " 최대 "
+                    + EconomyMetrics.formatMillis(latency.getMaxMicros()) + " §7메인 스레드: "
+                    + (query.getMainThread() > 0 ? "§c" : "§f") + query.getMainThread() + " §7느림: §f"
+                    + query.getSlow() + " §7오류: §f" + query.getErrors());
+        }
+    }
+
+    private void showPoolLatency(CommandSender sender, String label, LatencyHistogram.Snapshot snapshot) {
+        if (snapshot.getCount() == 0) {
+            return;
+        }
+        sender.sendMessage("§f" + label + " §7" + snapshot.getCount() + "회 평균 "
+                + EconomyMetrics.formatMillis(snapshot.getMeanMicros())
+                + " p50 " + EconomyMetrics.formatMillis(snapshot.percentileMicros(50))
+                + " p99 " + EconomyMetrics.formatMillis(snapshot.percentileMicros(99))
+                + " 최대 " + EconomyMetrics.formatMillis(snapshot.getMaxMicros()));
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        List<String> completions = new ArrayList<>();
+        if (args.length == 1) {
+            for (String name : SECTIONS) {
+                if (name.startsWith(args[0].toLowerCase())) {
+                    completions.add(name);
+                }
+            }
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("queries") && "reset".startsWith(args[1].toLowerCase())) {
+            completions.add("reset");
+        }
+        return completions;
+    }
+}
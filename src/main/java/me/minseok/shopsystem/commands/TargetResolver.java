@@ -0,0 +1,140 @@
+package me.minseok.shopsystem.commands;
+
+import me.minseok.shopsystem.economy.EconomyExecutor;
+import me.minseok.shopsystem.session.PlayerDirectory;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 명령어 대상 플레이어를 접속 여부와 관계없이 찾아 경제 작업을 실행합니다
+ * 이 서버 접속자 → 이름 디렉터리 캐시 → player_names 순으로 찾고, DB 조회와 경제 작업은 경제 스레드에서 처리한 뒤
+ * 결과는 메인 스레드에서 전달합니다. 동시에 진행 중인 요청 수를 제한해 커넥션 풀을 보호합니다.
+ */
+public class TargetResolver {
+
+    private final EconomyExecutor executor;
+    private final PlayerDirectory directory;
+    private final Semaphore permits;
+
+    /**
+     * @param maxConcurrent 동시에 처리할 최대 명령어 요청 수
+     */
+    public TargetResolver(EconomyExecutor executor, PlayerDirectory directory, int maxConcurrent) {
+        this.executor = executor;
+        this.directory = directory;
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /**
+     * 대상을 찾아 작업을 실행하고 결과를 메인 스레드에서 처리합니다 (메인 스레드에서 호출)
+     * 대상을 찾지 못했거나 요청이 너무 많거나 작업이 실패하면 sender에게 알립니다.
+     *
+     * @param operation 찾은 대상으로 실행할 비동기 작업
+     * @param onResult  메인 스레드에서 호출되는 결과 처리
+     */
+    public <T> void withTarget(CommandSender sender, String name, Function<Target, CompletableFuture<T>> operation,
+            BiConsumer<Target, T> onResult) {
+        if (!permits.tryAcquire()) {
+            sender.sendMessage("§c요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요");
+            return;
+        }
+
+        CompletableFuture<Target> target;
+        try {
+            target = resolve(name);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        executor.onMain(target.thenCompose(resolved -> {
+            if (resolved == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return operation.apply(resolved).thenApply(result -> new Outcome<>(resolved, result));
+        }).whenComplete((outcome, error) -> permits.release()), outcome -> {
+            if (outcome == null) {
+                sender.sendMessage("§c플레이어를 찾을 수 없습니다: " + name);
+                return;
+            }
+            onResult.accept(outcome.target, outcome.result);
+        }, error -> sender.sendMessage("§c실패: 데이터베이스 오류"));
+    }
+
+    /**
+     * 이름으로 플레이어를 찾습니다. 캐시에 있으면 바로 완료되고, 없을 때만 DB를 조회합니다.
+     *
+     * @return 대상, 기록이 없으면 null로 완료
+     */
+    public CompletableFuture<Target> resolve(String name) {
+        Player online = Bukkit.getPlayerExact(name);
+        if (online != null) {
+            return CompletableFuture.completedFuture(new Target(online.getUniqueId(), online.getName()));
+        }
+
+        UUID cached = directory.getUuid(name);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(new Target(cached, displayName(cached, name)));
+        }
+
+        return executor.supply(() -> {
+            UUID uuid = directory.lookupUuid(name);
+            return uuid != null ? new Target(uuid, displayName(uuid, name)) : null;
+        });
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    private String displayName(UUID uuid, String typed) {
+        // The directory keeps the player's own capitalization; it may have been evicted since the lookup
+        String name = directory.getName(uuid);
+        return name != null ? name : typed;
+    }
+
+    /**
+     * 찾은 대상 플레이어
+     */
+    public static final class Target {
+        private final UUID uuid;
+        private final String name;
+
+        private Target(UUID uuid, String name) {
+            this.uuid = uuid;
+            this.name = name;
+        }
+
+        public UUID getUuid() {
+            return uuid;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 이 서버에 접속 중이면 플레이어, 아니면 null (메인 스레드에서 호출)
+         */
+        public Player getOnlinePlayer() {
+            return Bukkit.getPlayer(uuid);
+        }
+    }
+
+    private static final class Outcome<T> {
+        private final Target target;
+        private final T result;
+
+        private Outcome(Target target, T result) {
+            this.target = target;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package me.minseok.shopsystem.database;
+
+import me.minseok.shopsystem.economy.LatencyHistogram;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 모든 비동기 DB 작업을 실행하는 공용 실행기 (가상 스레드)
+ * 동시에 실행되는 작업 수를 커넥션 풀 크기에 맞춰 제한하고, 나머지는 우선순위별 대기열에 쌓습니다.
+ * 자리가 나면 거래 → 플레이어 → 백그라운드 순으로 꺼내며, 대기열이 가득 차면 작업을 거부하고 개수를 기록합니다.
+ * 작업마다 가상 스레드를 하나씩 쓰므로 JDBC 호출이 막혀도 Bukkit 비동기 스레드나 메인 스레드를 잡아두지 않습니다.
+ */
+public class DatabaseExecutor {
+
+    /**
+     * 우선순위 (앞일수록 먼저 실행)
+     */
+    public enum Lane {
+        /**
+         * 잔액 변경, 거래 후 가격 저장 등 플레이어가 결과를 기다리는 거래
+         */
+        TRADE,
+        /**
+         * 접속/퇴장 세션, 명령어 조회
+         */
+        PLAYER,
+        /**
+         * 주기적인 flush, 통계, 압축, 가격 폴링
+         */
+        BACKGROUND
+    }
+
+    private static final Lane[] LANES = Lane.values();
+
+    private final Plugin plugin;
+    private final Logger logger;
+    private final DatabaseManager database;
+    private final int configuredLimit;
+    private final int queueCapacity;
+    private final ExecutorService threads;
+
+    // All guarded by "queues"
+    private final ArrayDeque<Task<?>>[] queues;
+    private int inFlight;
+    private boolean shutdown;
+
+    private final LongAdder[] submitted = new LongAdder[LANES.length];
+    private final LongAdder[] rejected = new LongAdder[LANES.length];
+    private final LatencyHistogram[] queueWait = new LatencyHistogram[LANES.length];
+    private final LongAdder failed = new LongAdder();
+    private volatile int peakInFlight;
+
+    /**
+     * @param maxInFlight   동시에 실행할 최대 작업 수 (0 이하이면 커넥션 풀 크기 - 1; 풀 크기가 바뀌면 따라감)
+     *                      남는 커넥션 하나는 거래 기록/저널 전용 스레드와 Vault 동기 호출이 씁니다.
+     * @param queueCapacity 우선순위마다 대기할 수 있는 최대 작업 수
+     */
+    @SuppressWarnings("unchecked")
+    public DatabaseExecutor(Plugin plugin, DatabaseManager database, int maxInFlight, int queueCapacity) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.database = database;
+        this.configuredLimit = maxInFlight;
+        this.queueCapacity = Math.max(16, queueCapacity);
+        this.threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ShopCore-DB-", 0).factory());
+        this.queues = new ArrayDeque[LANES.length];
+        for (int i = 0; i < LANES.length; i++) {
+            queues[i] = new ArrayDeque<>();
+            submitted[i] = new LongAdder();
+            rejected[i] = new LongAdder();
+            queueWait[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 작업을 대기열에 넣습니다. 대기열이 가득 찼거나 종료 중이면 RejectedExecutionException으로 실패한 future를 돌려줍니다.
+     * 검사 예외는 CompletionException으로 감싸집니다.
+     */
+    public <T> CompletableFuture<T> supply(Lane lane, Callable<T> task) {
+        Task<T> entry = new Task<>(lane, task);
+        enqueue(entry);
+        return entry.future;
+    }
+
+    /**
+     * 결과가 없는 작업을 대기열에 넣습니다. 거부되거나 실패하면 로그를 남깁니다.
+     *
+     * @return 대기열에 들어갔는지 여부
+     */
+    public boolean execute(Lane lane, Runnable task) {
+        Task<Void> entry = new Task<>(lane, () -> {
+            task.run();
+            return null;
+        });
+        if (!enqueue(entry)) {
+            logger.log(Level.WARNING, "Dropped " + lane.name().toLowerCase() + " database task: "
+                    + entry.future.exceptionNow().getMessage());
+            return false;
+        }
+        entry.future.whenComplete((result, error) -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                logger.log(Level.SEVERE, "Database " + lane.name().toLowerCase() + " task failed: "
+                        + cause.getMessage(), cause);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 작업을 주기적으로 대기열에 넣습니다. 이전 실행이 아직 대기 중이거나 실행 중이면 이번 주기는 건너뜁니다.
+     * 타이머는 메인 스레드에서 대기열에 넣기만 하므로 Bukkit 비동기 스레드를 쓰지 않습니다.
+     */
+    public void repeat(Lane lane, Runnable task, long delayTicks, long periodTicks) {
+        AtomicBoolean pending = new AtomicBoolean();
+        plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            if (!pending.compareAndSet(false, true)) {
+                return;
+            }
+            supply(lane, () -> {
+                try {
+                    task.run();
+                } finally {
+                    pending.set(false);
+                }
+                return null;
+            }).whenComplete((result, error) -> {
+                if (error instanceof RejectedExecutionException) {
+                    pending.set(false);
+                }
+            });
+        }, delayTicks, periodTicks);
+    }
+
+    /**
+     * 새 작업을 받지 않고, 대기 중인 작업과 실행 중인 작업이 끝날 때까지 기다립니다 (onDisable에서 호출)
+     *
+     * @param timeoutMillis 기다릴 최대 시간; 넘으면 남은 대기 작업을 취소합니다
+     */
+    public void shutdown(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        int dropped = 0;
+        synchronized (queues) {
+            shutdown = true;
+            try {
+                while (inFlight > 0 || queued() > 0) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    queues.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            for (ArrayDeque<Task<?>> queue : queues) {
+                for (Task<?> task : queue) {
+                    task.future.completeExceptionally(new RejectedExecutionException("Database executor shut down"));
+                    dropped++;
+                }
+                queue.clear();
+            }
+        }
+
+        if (dropped > 0 || inFlight() > 0) {
+            logger.log(Level.WARNING, "Database executor did not drain in time; " + dropped + " queued tasks dropped, "
+                    + inFlight() + " still running");
+        }
+        threads.shutdown();
+    }
+
+    /**
+     * 현재 동시 실행 한도
+     */
+    public int getLimit() {
+        return configuredLimit > 0 ? configuredLimit : Math.max(1, database.getPoolSize() - 1);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getInFlight() {
+        return inFlight();
+    }
+
+    public int getPeakInFlight() {
+        return peakInFlight;
+    }
+
+    public int getQueued(Lane lane) {
+        synchronized (queues) {
+            return queues[lane.ordinal()].size();
+        }
+    }
+
+    public long getSubmitted(Lane lane) {
+        return submitted[lane.ordinal()].sum();
+    }
+
+    public long getRejected(Lane lane) {
+        return rejected[lane.ordinal()].sum();
+    }
+
+    /**
+     * 대기열에 들어간 뒤 실행되기까지 걸린 시간
+     */
+    public LatencyHistogram.Snapshot queueWaitSnapshot(Lane lane) {
+        return queueWait[lane.ordinal()].snapshot();
+    }
+
+    /**
+     * 예외로 끝난 작업 수
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    private boolean enqueue(Task<?> task) {
+        int lane = task.lane.ordinal();
+        synchronized (queues) {
+            if (shutdown || queues[lane].size() >= queueCapacity) {
+                rejected[lane].increment();
+                task.future.completeExceptionally(new RejectedExecutionException(shutdown
+                        ? "Database executor is shut down"
+                        : "Database " + task.lane.name().toLowerCase() + " queue is full (" + queueCapacity + ")"));
+                return false;
+            }
+            queues[lane].addLast(task);
+            submitted[lane].increment();
+        }
+        dispatch();
+        return true;
+    }
+
+    private void dispatch() {
+        while (true) {
+            Task<?> next = null;
+            synchronized (queues) {
+                if (inFlight >= getLimit()) {
+                    return;
+                }
+                for (ArrayDeque<Task<?>> queue : queues) {
+                    next = queue.pollFirst();
+                    if (next != null) {
+                        break;
+                    }
+                }
+                if (next == null) {
+                    return;
+                }
+                inFlight++;
+                if (inFlight > peakInFlight) {
+                    peakInFlight = inFlight;
+                }
+            }
+
+            Task<?> task = next;
+            try {
+                threads.execute(() -> run(task));
+            } catch (RejectedExecutionException e) {
+                // Only after shutdown() gave up waiting
+                task.future.completeExceptionally(e);
+                finished();
+            }
+        }
+    }
+
+    private void run(Task<?> task) {
+        queueWait[task.lane.ordinal()].record(System.nanoTime() - task.enqueuedAt);
+        try {
+            task.run();
+        } finally {
+            finished();
+            dispatch();
+        }
+    }
+
+    private void finished() {
+        synchronized (queues) {
+            inFlight--;
+            queues.notifyAll();
+        }
+    }
+
+    private int inFlight() {
+        synchronized (queues) {
+            return inFlight;
+        }
+    }
+
+    private int queued() {
+        int total = 0;
+        for (ArrayDeque<Task<?>> queue : queues) {
+            total += queue.size();
+        }
+        return total;
+    }
+
+    private final class Task<T> {
+        private final Lane lane;
+        private final Callable<T> callable;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+
+        private Task(Lane lane, Callable<T> callable) {
+            this.lane = lane;
+            this.callable = callable;
+        }
+
+        private void run() {
+            try {
+                future.complete(callable.call());
+            } catch (Throwable e) {
+                failed.increment();
+                future.completeExceptionally(e instanceof CompletionException ? e : new CompletionException(e));
+            }
+        }
+    }
+}
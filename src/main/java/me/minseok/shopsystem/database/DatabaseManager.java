@@ -2,41 +2,131 @@ package me.minseok.shopsystem.database;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.bukkit.Bukkit;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 public class DatabaseManager {
 
     private final Logger logger;
+    private final StorageBackend backend;
+    private final PoolMetrics poolMetrics = new PoolMetrics();
+    private final long mainThreadTimeoutMillis;
     private HikariDataSource dataSource;
 
-    public DatabaseManager(String host, int port, String database,
-            String username, String password, Logger logger) {
+    // Optional read replica for analytical reads; see getReadConnection()
+    private volatile HikariDataSource replica;
+    private volatile boolean replicaRoutable;
+    private volatile boolean fallbackToPrimary = true;
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+
+    // Optional per-statement timing; wraps every connection handed out once set
+    private volatile QueryProfiler queryProfiler;
+
+    /**
+     * @param backend                 저장소 종류 (mysql, h2, memory)
+     * @param connectionTimeoutMillis 풀에서 커넥션을 기다리는 최대 시간; 경제 쓰기는 거래 ID로 재시도하므로 짧게 둬도 안전합니다
+     * @param mainThreadTimeoutMillis 메인 스레드가 커넥션을 기다리는 최대 시간 (풀이 가득 차도 틱이 이보다 오래 멈추지 않음)
+     */
+    public DatabaseManager(StorageBackend backend, StorageBackend.Settings settings, long connectionTimeoutMillis,
+            long mainThreadTimeoutMillis, Logger logger) {
         this.logger = logger;
+        this.backend = backend;
 
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + database);
-        config.setUsername(username);
-        config.setPassword(password);
+        backend.configure(config, settings);
 
         // Connection pool settings
-        config.setMaximumPoolSize(10);
-        config.setMinimumIdle(2);
-        config.setConnectionTimeout(30000);
+        config.setPoolName("ShopSystem");
+        config.setConnectionTimeout(Math.max(250, connectionTimeoutMillis));
+        config.setMetricsTrackerFactory(poolMetrics);
         config.setIdleTimeout(600000);
         config.setMaxLifetime(1800000);
 
-        // Performance settings
-        config.addDataSourceProperty("cachePrepStmts", "true");
-        config.addDataSourceProperty("prepStmtCacheSize", "250");
-        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-        config.addDataSourceProperty("useServerPrepStmts", "true");
-
+        this.mainThreadTimeoutMillis = Math.max(250, Math.min(mainThreadTimeoutMillis, connectionTimeoutMillis));
         this.dataSource = new HikariDataSource(config);
+        logger.log(Level.INFO, "Using " + backend.name().toLowerCase(Locale.ROOT) + " storage");
+    }
+
+    public PoolMetrics getPoolMetrics() {
+        return poolMetrics;
+    }
+
+    public int getPoolSize() {
+        return dataSource.getHikariConfigMXBean().getMaximumPoolSize();
+    }
+
+    /**
+     * 실행 중에 최대 커넥션 수를 바꿉니다 (줄일 때는 반납되는 커넥션부터 닫힘)
+     */
+    public void resizePool(int size) {
+        dataSource.getHikariConfigMXBean().setMaximumPoolSize(size);
+    }
+
+    /**
+     * 이후에 얻는 모든 커넥션(주 DB, 복제본)의 SQL 실행 시간을 측정합니다
+     */
+    public void enableProfiling(QueryProfiler profiler) {
+        this.queryProfiler = profiler;
+    }
+
+    /**
+     * @return 측정기, 꺼져 있으면 null
+     */
+    public QueryProfiler getQueryProfiler() {
+        return queryProfiler;
+    }
+
+    public StorageBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * 서버 간 이름 락을 얻습니다 (MySQL GET_LOCK). 공유되지 않는 내장 저장소에서는 항상 성공합니다.
+     * 같은 커넥션으로 {@link #releaseNamedLock}을 호출해야 합니다.
+     *
+     * @param timeoutSeconds 기다릴 최대 시간 (0이면 바로 포기)
+     * @return 락을 얻었는지 여부
+     */
+    public boolean tryNamedLock(Connection conn, String name, int timeoutSeconds) throws SQLException {
+        if (!backend.isShared()) {
+            return true;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, name);
+            stmt.setInt(2, timeoutSeconds);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    public void releaseNamedLock(Connection conn, String name) {
+        if (!backend.isShared()) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, name);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Failed to release lock " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 큰 결과를 스트리밍으로 읽을 때 쓸 fetch size
+     */
+    public int getStreamingFetchSize() {
+        return backend.getStreamingFetchSize();
     }
 
     public Connection getConnection() throws SQLException {
@@ -44,7 +134,114 @@ public class DatabaseManager {
             logger.log(Level.SEVERE, "DataSource is null or closed!");
             throw new SQLException("Database connection pool is not available");
         }
-        return dataSource.getConnection();
+        return acquire(dataSource);
+    }
+
+    /**
+     * 읽기 전용 복제본 풀을 추가합니다 (MySQL에서만 사용, 데이터베이스 이름은 주 DB와 같음)
+     * 복제 지연이 확인되기 전까지는 읽기도 주 DB로 보냅니다.
+     *
+     * @param fallbackToPrimary 복제본이 느리거나 연결할 수 없을 때 주 DB에서 읽을지 여부 (false면 지연된 복제본에서 읽거나 실패)
+     */
+    public void attachReplica(StorageBackend.Settings settings, long connectionTimeoutMillis, boolean fallbackToPrimary) {
+        if (!backend.isShared()) {
+            logger.log(Level.WARNING, "Read replicas are only supported with mysql storage, ignoring database.replica");
+            return;
+        }
+
+        HikariConfig config = new HikariConfig();
+        StorageBackend.MYSQL.configure(config, settings);
+        config.setPoolName("ShopSystem-replica");
+        config.setReadOnly(true);
+        config.setConnectionTimeout(Math.max(250, connectionTimeoutMillis));
+        config.setIdleTimeout(600000);
+        config.setMaxLifetime(1800000);
+        // Start even if the replica is down; the lag monitor keeps reads on the primary until it answers
+        config.setInitializationFailTimeout(-1);
+
+        this.fallbackToPrimary = fallbackToPrimary;
+        this.replica = new HikariDataSource(config);
+        logger.log(Level.INFO, "Read replica pool started (fallback to primary: " + fallbackToPrimary + ")");
+    }
+
+    /**
+     * 분석용 읽기(순위, 가격 기록, 인기 아이템, 가격 폴링)에 쓸 커넥션
+     * 복제본이 있고 지연이 허용 범위 안이면 복제본, 아니면 주 DB 커넥션을 돌려줍니다.
+     * 방금 쓴 값을 다시 읽어야 하는 경로와 모든 쓰기는 {@link #getConnection()}을 사용하세요.
+     */
+    public Connection getReadConnection() throws SQLException {
+        HikariDataSource source = replica;
+        if (source == null || source.isClosed()) {
+            return getConnection();
+        }
+        if (!replicaRoutable && fallbackToPrimary) {
+            fallbackReads.increment();
+            return getConnection();
+        }
+
+        try {
+            Connection conn = acquire(source);
+            replicaReads.increment();
+            return conn;
+        } catch (SQLException e) {
+            if (!fallbackToPrimary) {
+                throw e;
+            }
+            // The lag monitor turns routing back on once the replica answers again
+            replicaRoutable = false;
+            fallbackReads.increment();
+            logger.log(Level.WARNING, "Read replica unavailable, reading from primary: " + e.getMessage());
+            return getConnection();
+        }
+    }
+
+    /**
+     * 복제본 커넥션을 직접 얻습니다 (지연 측정용)
+     *
+     * @return 커넥션, 복제본이 없으면 null
+     */
+    Connection getReplicaConnection() throws SQLException {
+        HikariDataSource source = replica;
+        return source != null && !source.isClosed() ? profiled(source.getConnection()) : null;
+    }
+
+    void setReplicaRoutable(boolean routable) {
+        this.replicaRoutable = routable;
+    }
+
+    public boolean hasReplica() {
+        return replica != null;
+    }
+
+    public boolean isReplicaRoutable() {
+        return replicaRoutable;
+    }
+
+    /**
+     * 복제본에서 처리한 읽기 수
+     */
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    /**
+     * 복제본 지연/장애로 주 DB에서 처리한 읽기 수
+     */
+    public long getFallbackReads() {
+        return fallbackReads.sum();
+    }
+
+    private Connection acquire(HikariDataSource source) throws SQLException {
+        if (Bukkit.isPrimaryThread() && source.getHikariPoolMXBean() instanceof HikariPool pool) {
+            // A saturated pool should fail a main-thread call quickly instead of freezing the tick
+            return profiled(pool.getConnection(mainThreadTimeoutMillis));
+        }
+        return profiled(source.getConnection());
+    }
+
+    private Connection profiled(Connection conn) {
+        QueryProfiler profiler = queryProfiler;
+        return profiler != null ? profiler.wrap(conn) : conn;
     }
 
     public void initialize() {
@@ -56,6 +253,7 @@ public class DatabaseManager {
                         CREATE TABLE IF NOT EXISTS player_balances (
                             uuid VARCHAR(36) PRIMARY KEY,
                             balance DECIMAL(15,2) DEFAULT 0.00,
+                            version BIGINT NOT NULL DEFAULT 0,
                             last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
                         )
                     """);
@@ -64,11 +262,13 @@ public class DatabaseManager {
             executeUpdate(conn, """
                         CREATE TABLE IF NOT EXISTS transactions (
                             id INT AUTO_INCREMENT PRIMARY KEY,
+                            txn_id VARCHAR(36) NULL,
                             uuid VARCHAR(36) NOT NULL,
                             type ENUM('DEPOSIT', 'WITHDRAW', 'PURCHASE', 'SALE', 'TRANSFER') NOT NULL,
                             amount DECIMAL(15,2) NOT NULL,
                             description VARCHAR(255),
                             timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                            UNIQUE KEY uk_txn_id (txn_id),
                             INDEX idx_uuid (uuid),
                             INDEX idx_timestamp (timestamp)
                         )
@@ -110,6 +310,50 @@ public class DatabaseManager {
                         )
                     """);
 
+            // Last known name of every player who joined, for offline lookups and leaderboards
+            executeUpdate(conn, """
+                        CREATE TABLE IF NOT EXISTS player_names (
+                            uuid VARCHAR(36) PRIMARY KEY,
+                            name VARCHAR(32) NOT NULL,
+                            name_lower VARCHAR(32) NOT NULL,
+                            last_seen TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                            INDEX idx_name_lower (name_lower)
+                        )
+                    """);
+
+            // Daily per-player totals of compacted transactions rows
+            executeUpdate(conn, """
+                        CREATE TABLE IF NOT EXISTS transactions_daily (
+                            uuid VARCHAR(36) NOT NULL,
+                            type ENUM('DEPOSIT', 'WITHDRAW', 'PURCHASE', 'SALE', 'TRANSFER') NOT NULL,
+                            day DATE NOT NULL,
+                            tx_count INT NOT NULL DEFAULT 0,
+                            total_amount DECIMAL(20,2) NOT NULL DEFAULT 0.00,
+                            PRIMARY KEY (uuid, type, day),
+                            INDEX idx_day (day)
+                        )
+                    """);
+
+            // Per-server heartbeat written to the primary and read back from the replica to measure lag
+            executeUpdate(conn, """
+                        CREATE TABLE IF NOT EXISTS replica_heartbeat (
+                            server VARCHAR(64) PRIMARY KEY,
+                            beat_ms BIGINT NOT NULL
+                        )
+                    """);
+
+            // Per-server replay position of the local economy journal
+            executeUpdate(conn, """
+                        CREATE TABLE IF NOT EXISTS economy_journal (
+                            server VARCHAR(64) PRIMARY KEY,
+                            applied_seq BIGINT NOT NULL DEFAULT 0,
+                            last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+                        )
+                    """);
+
+            // Columns and indexes for tables that already exist on live deployments
+            new SchemaMigrator(this, logger).migrate(conn);
+
             logger.log(Level.INFO, "Database initialized successfully");
         } catch (SQLException e) {
             logger.log(Level.SEVERE, "Failed to initialize database: " + e.getMessage(), e);
@@ -124,6 +368,10 @@ public class DatabaseManager {
     }
 
     public void close() {
+        HikariDataSource source = replica;
+        if (source != null && !source.isClosed()) {
+            source.close();
+        }
         try {
             if (dataSource != null && !dataSource.isClosed()) {
                 dataSource.close();
@@ -145,7 +393,7 @@ public class DatabaseManager {
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, uuid.toString());
             stmt.setString(2, itemId);
-            try (java.sql.ResultSet rs = stmt.executeQuery()) {
+            try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next();
             }
         } catch (SQLException e) {
@@ -166,7 +414,7 @@ public class DatabaseManager {
             stmt.setString(1, uuid.toString());
             stmt.setString(2, itemId);
             stmt.executeUpdate();
-            logger.log(Level.INFO, "Recorded purchase for " + uuid + ": " + itemId);
+            logger.log(Level.FINE, "Recorded purchase for " + uuid + ": " + itemId);
         } catch (SQLException e) {
             logger.log(Level.SEVERE, "Failed to record purchase for " + uuid + ": " + e.getMessage(), e);
         }
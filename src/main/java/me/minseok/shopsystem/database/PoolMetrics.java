@@ -0,0 +1,122 @@
+package me.minseok.shopsystem.database;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import me.minseok.shopsystem.economy.LatencyHistogram;
+import org.bukkit.Bukkit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 커넥션 풀 통계 (Hikari metrics tracker)
+ * 커넥션을 얻기까지 기다린 시간은 호출 스레드(메인/비동기)별로, 커넥션을 빌려 쓴 시간은 전체로 히스토그램에 기록합니다.
+ * 현재 활성/유휴/대기 수는 Hikari가 주기적으로 갱신하는 PoolStats에서 읽습니다.
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private final LatencyHistogram mainAcquire = new LatencyHistogram();
+    private final LatencyHistogram asyncAcquire = new LatencyHistogram();
+    private final LatencyHistogram usage = new LatencyHistogram();
+    private final LatencyHistogram creation = new LatencyHistogram();
+    private final LongAdder timeouts = new LongAdder();
+
+    // Highest values seen since the last takePeak* call, for the adaptive sizer
+    private final AtomicInteger peakActive = new AtomicInteger();
+    private final AtomicInteger peakPending = new AtomicInteger();
+
+    private volatile PoolStats stats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.stats = poolStats;
+        return new Tracker();
+    }
+
+    public LatencyHistogram.Snapshot acquireSnapshot(boolean mainThread) {
+        return (mainThread ? mainAcquire : asyncAcquire).snapshot();
+    }
+
+    public LatencyHistogram.Snapshot usageSnapshot() {
+        return usage.snapshot();
+    }
+
+    public LatencyHistogram.Snapshot creationSnapshot() {
+        return creation.snapshot();
+    }
+
+    /**
+     * 커넥션을 기다리다 시간 초과된 횟수
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public int getActive() {
+        PoolStats current = stats;
+        return current != null ? current.getActiveConnections() : 0;
+    }
+
+    public int getIdle() {
+        PoolStats current = stats;
+        return current != null ? current.getIdleConnections() : 0;
+    }
+
+    public int getTotal() {
+        PoolStats current = stats;
+        return current != null ? current.getTotalConnections() : 0;
+    }
+
+    /**
+     * 커넥션을 기다리고 있는 스레드 수
+     */
+    public int getPending() {
+        PoolStats current = stats;
+        return current != null ? current.getPendingThreads() : 0;
+    }
+
+    /**
+     * 마지막 호출 이후 가장 많았던 활성 커넥션 수를 돌려주고 초기화합니다
+     */
+    public int takePeakActive() {
+        return Math.max(peakActive.getAndSet(0), getActive());
+    }
+
+    /**
+     * 마지막 호출 이후 가장 많았던 대기 스레드 수를 돌려주고 초기화합니다
+     */
+    public int takePeakPending() {
+        return Math.max(peakPending.getAndSet(0), getPending());
+    }
+
+    private final class Tracker implements IMetricsTracker {
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            (Bukkit.isPrimaryThread() ? mainAcquire : asyncAcquire).record(elapsedAcquiredNanos);
+
+            PoolStats current = stats;
+            if (current != null) {
+                // PoolStats refreshes itself at most once a second, so this stays cheap
+                peakActive.accumulateAndGet(current.getActiveConnections(), Math::max);
+                peakPending.accumulateAndGet(current.getPendingThreads(), Math::max);
+            }
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usage.record(elapsedBorrowedMillis * 1_000_000L);
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            creation.record(connectionCreatedMillis * 1_000_000L);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package me.minseok.shopsystem.database;
+
+import me.minseok.shopsystem.economy.LatencyHistogram;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 커넥션 대기 시간을 보고 풀 크기를 정해진 범위 안에서 조절합니다
+ * 직전 구간의 p99 대기 시간이 목표를 넘거나 시간 초과가 있으면 바로 늘리고,
+ * 여러 구간 연속으로 한가하면(대기 없음, 최대 활성 수가 크기보다 작음) 하나씩 줄입니다.
+ */
+public class PoolSizer {
+
+    // Quiet intervals in a row before giving a connection back
+    private static final int SHRINK_AFTER = 3;
+
+    private final DatabaseManager database;
+    private final Logger logger;
+    private final int minSize;
+    private final int maxSize;
+    private final long targetWaitMicros;
+
+    private final AtomicLong grown = new AtomicLong();
+    private final AtomicLong shrunk = new AtomicLong();
+
+    // Touched only by the sizing task
+    private LatencyHistogram.Snapshot lastMain;
+    private LatencyHistogram.Snapshot lastAsync;
+    private long lastTimeouts;
+    private int quietIntervals;
+
+    /**
+     * @param minSize          줄일 수 있는 최소 커넥션 수
+     * @param maxSize          늘릴 수 있는 최대 커넥션 수 (DB의 max_connections를 서버 수로 나눈 값보다 작게)
+     * @param targetWaitMillis 허용할 p99 커넥션 대기 시간
+     */
+    public PoolSizer(DatabaseManager database, Logger logger, int minSize, int maxSize, long targetWaitMillis) {
+        this.database = database;
+        this.logger = logger;
+        this.minSize = Math.max(1, minSize);
+        this.maxSize = Math.max(this.minSize, maxSize);
+        this.targetWaitMicros = Math.max(1, targetWaitMillis) * 1000;
+    }
+
+    /**
+     * @param intervalSeconds 크기를 다시 판단하는 주기
+     */
+    public void start(Plugin plugin, int intervalSeconds) {
+        long period = 20L * Math.max(5, intervalSeconds);
+        plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::adjust, period, period);
+    }
+
+    /**
+     * 직전 구간의 통계로 풀 크기를 한 번 조절합니다
+     */
+    public void adjust() {
+        PoolMetrics metrics = database.getPoolMetrics();
+        LatencyHistogram.Snapshot main = metrics.acquireSnapshot(true);
+        LatencyHistogram.Snapshot async = metrics.acquireSnapshot(false);
+        long p99 = Math.max(main.since(lastMain).percentileMicros(99), async.since(lastAsync).percentileMicros(99));
+        lastMain = main;
+        lastAsync = async;
+
+        long timeouts = metrics.getTimeouts();
+        boolean timedOut = timeouts > lastTimeouts;
+        lastTimeouts = timeouts;
+
+        int peakActive = metrics.takePeakActive();
+        int peakPending = metrics.takePeakPending();
+        int size = database.getPoolSize();
+
+        if ((timedOut || p99 > targetWaitMicros) && size < maxSize) {
+            // Grow by a quarter so a sudden burst is absorbed in a few intervals rather than one at a time
+            int next = Math.min(maxSize, size + Math.max(1, size / 4));
+            resize(size, next, "p99 wait " + p99 / 1000 + "ms" + (timedOut ? ", timeouts" : ""));
+            grown.incrementAndGet();
+            quietIntervals = 0;
+            return;
+        }
+
+        if (size < minSize || size > maxSize) {
+            resize(size, Math.max(minSize, Math.min(maxSize, size)), "outside the configured bounds");
+            return;
+        }
+
+        boolean quiet = peakPending == 0 && p99 < targetWaitMicros / 2 && peakActive < size - 1;
+        quietIntervals = quiet ? quietIntervals + 1 : 0;
+        if (quietIntervals >= SHRINK_AFTER && size > minSize) {
+            resize(size, size - 1, "peak " + peakActive + " active");
+            shrunk.incrementAndGet();
+            quietIntervals = 0;
+        }
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getGrown() {
+        return grown.get();
+    }
+
+    public long getShrunk() {
+        return shrunk.get();
+    }
+
+    private void resize(int from, int to, String reason) {
+        database.resizePool(to);
+        logger.log(Level.INFO, "Resized connection pool " + from + " -> " + to + " (" + reason + ")");
+    }
+}
@@ -0,0 +1,258 @@
+package me.minseok.shopsystem.database;
+
+import me.minseok.shopsystem.economy.EconomyMetrics;
+import me.minseok.shopsystem.economy.LatencyHistogram;
+import org.bukkit.Bukkit;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 문 단위 지연 시간 측정 (풀에서 꺼낸 커넥션을 감싸는 JDBC 프록시)
+ * PreparedStatement의 SQL을 템플릿으로 삼아 execute* 호출 시간을 히스토그램에 기록하고,
+ * 기준보다 느린 문은 호출 스레드와 함께, 메인 스레드에서 실행된 문은 따로 로그를 남깁니다.
+ * 스트리밍 조회에서 행을 읽어오는 시간은 execute 이후라 포함되지 않습니다.
+ */
+public class QueryProfiler {
+
+    // Further templates share one entry so ad-hoc SQL cannot grow the map without bound
+    private static final int MAX_TEMPLATES = 512;
+    private static final String OTHER = "<other>";
+
+    // Per-template log rate limits
+    private static final long SLOW_LOG_INTERVAL_NANOS = 10_000_000_000L;
+    private static final long MAIN_THREAD_LOG_INTERVAL_NANOS = 60_000_000_000L;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    private final Logger logger;
+    private final long slowNanos;
+    private final boolean warnMainThread;
+    private final ConcurrentHashMap<String, QueryStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * @param slowQueryMillis 이보다 오래 걸린 문을 로그에 남김 (0 이하이면 끔)
+     * @param warnMainThread  메인 스레드에서 실행된 문을 로그에 남길지 여부 (문마다 1분에 한 번)
+     */
+    public QueryProfiler(Logger logger, long slowQueryMillis, boolean warnMainThread) {
+        this.logger = logger;
+        this.slowNanos = slowQueryMillis > 0 ? slowQueryMillis * 1_000_000L : Long.MAX_VALUE;
+        this.warnMainThread = warnMainThread;
+    }
+
+    /**
+     * 커넥션을 감쌉니다. 닫기와 트랜잭션 등 나머지 호출은 그대로 전달됩니다.
+     */
+    public Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(QueryProfiler.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+    }
+
+    /**
+     * 총 실행 시간이 긴 순서로 상위 템플릿
+     */
+    public List<QueryStats> top(int limit) {
+        // Totals keep changing while sorting, so compare a copy taken up front
+        return stats.values().stream()
+                .map(query -> Map.entry(query.getTotalMicros(), query))
+                .sorted(Map.Entry.<Long, QueryStats>comparingByKey().reversed())
+                .limit(Math.max(0, limit))
+                .map(Map.Entry::getValue)
+                .toList();
+    }
+
+    public int getTemplateCount() {
+        return stats.size();
+    }
+
+    public long getSlowQueryMillis() {
+        return slowNanos == Long.MAX_VALUE ? 0 : slowNanos / 1_000_000L;
+    }
+
+    /**
+     * 지금까지의 통계를 모두 지웁니다
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    private QueryStats statsFor(String sql) {
+        QueryStats existing = stats.get(sql);
+        if (existing != null) {
+            return existing;
+        }
+        if (stats.size() >= MAX_TEMPLATES) {
+            return stats.computeIfAbsent(OTHER, QueryStats::new);
+        }
+        return stats.computeIfAbsent(sql, key -> new QueryStats(WHITESPACE.matcher(key).replaceAll(" ").trim()));
+    }
+
+    private void record(QueryStats query, long nanos, boolean failed) {
+        query.latency.record(nanos);
+        query.totalMicros.add(nanos / 1000);
+        if (failed) {
+            query.errors.increment();
+        }
+
+        boolean mainThread = Bukkit.isPrimaryThread();
+        if (mainThread) {
+            query.mainThread.increment();
+            if (warnMainThread && query.shouldLog(query.lastMainThreadLog, MAIN_THREAD_LOG_INTERVAL_NANOS)) {
+                logger.log(Level.WARNING, "Query on the main thread (" + EconomyMetrics.formatMillis(nanos / 1000)
+                        + ", " + query.mainThread.sum() + " so far): " + query.template);
+            }
+        }
+
+        if (nanos >= slowNanos) {
+            query.slow.increment();
+            long suppressed = query.suppressedSlow.incrementAndGet();
+            if (query.shouldLog(query.lastSlowLog, SLOW_LOG_INTERVAL_NANOS)) {
+                query.suppressedSlow.addAndGet(-suppressed);
+                logger.log(Level.WARNING, "Slow query (" + EconomyMetrics.formatMillis(nanos / 1000) + " on "
+                        + Thread.currentThread().getName() + (mainThread ? ", main thread" : "")
+                        + (suppressed > 1 ? ", " + (suppressed - 1) + " more since last report" : "") + "): "
+                        + query.template);
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * SQL 템플릿 하나의 누적 통계
+     */
+    public static final class QueryStats {
+        private final String template;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder totalMicros = new LongAdder();
+        private final LongAdder mainThread = new LongAdder();
+        private final LongAdder slow = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private final AtomicLong lastSlowLog = new AtomicLong(System.nanoTime() - SLOW_LOG_INTERVAL_NANOS);
+        private final AtomicLong lastMainThreadLog = new AtomicLong(System.nanoTime() - MAIN_THREAD_LOG_INTERVAL_NANOS);
+        private final AtomicLong suppressedSlow = new AtomicLong();
+
+        private QueryStats(String template) {
+            this.template = template;
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+
+        public LatencyHistogram.Snapshot snapshot() {
+            return latency.snapshot();
+        }
+
+        public long getTotalMicros() {
+            return totalMicros.sum();
+        }
+
+        /**
+         * 메인 스레드에서 실행된 횟수
+         */
+        public long getMainThread() {
+            return mainThread.sum();
+        }
+
+        /**
+         * 느린 쿼리 기준을 넘은 횟수
+         */
+        public long getSlow() {
+            return slow.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        private boolean shouldLog(AtomicLong last, long intervalNanos) {
+            long now = System.nanoTime();
+            long previous = last.get();
+            return now - previous >= intervalNanos && last.compareAndSet(previous, now);
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = QueryProfiler.invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" -> wrapStatement((Statement) result, PreparedStatement.class, (String) args[0]);
+                case "prepareCall" -> wrapStatement((Statement) result, CallableStatement.class, (String) args[0]);
+                case "createStatement" -> wrapStatement((Statement) result, Statement.class, null);
+                default -> result;
+            };
+        }
+
+        private Statement wrapStatement(Statement statement, Class<? extends Statement> type, String sql) {
+            return (Statement) Proxy.newProxyInstance(QueryProfiler.class.getClassLoader(), new Class<?>[] { type },
+                    new StatementHandler(statement, sql != null ? statsFor(sql) : null));
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final QueryStats prepared;
+
+        private StatementHandler(Statement statement, QueryStats prepared) {
+            this.statement = statement;
+            this.prepared = prepared;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return QueryProfiler.invoke(statement, method, args);
+            }
+
+            QueryStats query = prepared;
+            if (args != null && args.length > 0 && args[0] instanceof String sql) {
+                // Plain Statement: strip literals so the same query with other values shares a template
+                String template = NUMBER_LITERAL.matcher(STRING_LITERAL.matcher(sql).replaceAll("?")).replaceAll("?");
+                query = statsFor(template);
+            } else if (query == null) {
+                query = statsFor("<batch>");
+            }
+
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = QueryProfiler.invoke(statement, method, args);
+                failed = false;
+                return result;
+            } finally {
+                record(query, System.nanoTime() - start, failed);
+            }
+        }
+    }
+}
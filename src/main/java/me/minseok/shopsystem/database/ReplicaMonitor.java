@@ -0,0 +1,158 @@
+package me.minseok.shopsystem.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 읽기 복제본의 지연을 heartbeat로 측정하고, 허용 범위를 넘으면 분석용 읽기를 주 DB로 돌립니다
+ * 주 DB에 이 서버의 heartbeat(현재 시각)를 주기적으로 쓰고, 복제본에서 다시 읽어 아직 보이지 않는
+ * 가장 오래된 heartbeat가 얼마나 지났는지를 지연으로 봅니다. 시각은 이 서버의 시계로만 비교하므로 DB 서버와 시계가 달라도 됩니다.
+ * REPLICATION CLIENT 권한 없이도 동작합니다.
+ */
+public class ReplicaMonitor {
+
+    private static final String WRITE_SQL = "INSERT INTO replica_heartbeat (server, beat_ms) VALUES (?, ?) "
+            + "ON DUPLICATE KEY UPDATE beat_ms = VALUES(beat_ms)";
+    private static final String READ_SQL = "SELECT beat_ms FROM replica_heartbeat WHERE server = ?";
+
+    // Far beyond any useful max lag; past this the exact figure no longer matters
+    private static final int MAX_OUTSTANDING = 256;
+
+    private final DatabaseManager database;
+    private final String server;
+    private final Logger logger;
+    private final long maxLagMillis;
+
+    // Heartbeats written to the primary but not yet seen on the replica, oldest first; touched only by check()
+    private final ArrayDeque<Long> outstanding = new ArrayDeque<>();
+    private long lastBeat;
+
+    private final AtomicLong checks = new AtomicLong();
+    private volatile long lagMillis = -1;
+
+    /**
+     * @param server       heartbeat 행을 구분할 서버 이름
+     * @param maxLagMillis 복제본에서 읽어도 되는 최대 지연
+     */
+    public ReplicaMonitor(DatabaseManager database, String server, Logger logger, long maxLagMillis) {
+        this.database = database;
+        this.server = server;
+        this.logger = logger;
+        this.maxLagMillis = Math.max(0, maxLagMillis);
+    }
+
+    /**
+     * @param intervalSeconds heartbeat를 쓰고 지연을 확인하는 주기
+     */
+    public void start(DatabaseExecutor executor, int intervalSeconds) {
+        long period = 20L * Math.max(1, intervalSeconds);
+        executor.repeat(DatabaseExecutor.Lane.BACKGROUND, this::check, 1L, period);
+    }
+
+    /**
+     * 복제본의 heartbeat를 읽어 지연을 갱신한 뒤 새 heartbeat를 씁니다 (비동기 스레드에서 호출)
+     */
+    public void check() {
+        checks.incrementAndGet();
+
+        long lag;
+        try {
+            lag = measure();
+        } catch (SQLException e) {
+            lag = -1;
+            if (database.isReplicaRoutable()) {
+                logger.log(Level.WARNING, "Read replica check failed, reading from primary: " + e.getMessage());
+            }
+        }
+        lagMillis = lag;
+
+        boolean routable = lag >= 0 && lag <= maxLagMillis;
+        if (routable != database.isReplicaRoutable()) {
+            if (routable) {
+                logger.log(Level.INFO, "Read replica caught up (" + lag + "ms behind), routing reads to it");
+            } else if (lag >= 0) {
+                logger.log(Level.WARNING, "Read replica is " + lag + "ms behind (max " + maxLagMillis
+                        + "ms), reading from primary");
+            }
+        }
+        database.setReplicaRoutable(routable);
+
+        try {
+            beat();
+        } catch (SQLException e) {
+            // The primary being down is reported by every other writer already
+            logger.log(Level.FINE, "Failed to write replica heartbeat: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 마지막으로 측정한 복제 지연
+     *
+     * @return 밀리초, 아직 모르거나 복제본에 연결할 수 없으면 -1
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public long getChecks() {
+        return checks.get();
+    }
+
+    /**
+     * @return 지연 (밀리초), 아직 비교할 heartbeat를 쓰지 않았으면 -1
+     */
+    private long measure() throws SQLException {
+        long seen = -1;
+        try (Connection conn = database.getReplicaConnection()) {
+            if (conn == null) {
+                return -1;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(READ_SQL)) {
+                stmt.setString(1, server);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        seen = rs.getLong(1);
+                    }
+                }
+            }
+        }
+
+        if (lastBeat == 0) {
+            // A row left by an earlier run says nothing about the replica's current position
+            return -1;
+        }
+        while (!outstanding.isEmpty() && outstanding.peekFirst() <= seen) {
+            outstanding.pollFirst();
+        }
+        // The replica has applied every beat up to "seen"; the oldest one it has not shown bounds the delay
+        if (!outstanding.isEmpty()) {
+            return System.currentTimeMillis() - outstanding.peekFirst();
+        }
+        return seen >= lastBeat ? 0 : System.currentTimeMillis() - lastBeat;
+    }
+
+    private void beat() throws SQLException {
+        // Strictly increasing so a beat is never mistaken for an earlier one within the same millisecond
+        long now = Math.max(System.currentTimeMillis(), lastBeat + 1);
+        try (Connection conn = database.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(WRITE_SQL)) {
+            stmt.setString(1, server);
+            stmt.setLong(2, now);
+            stmt.executeUpdate();
+        }
+        lastBeat = now;
+        if (outstanding.size() < MAX_OUTSTANDING) {
+            outstanding.addLast(now);
+        }
+    }
+}
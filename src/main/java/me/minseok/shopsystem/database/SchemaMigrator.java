@@ -0,0 +1,179 @@
+package me.minseok.shopsystem.database;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * 버전별 스키마 마이그레이션 실행기
+ * 적용된 버전과 체크섬을 schema_version 테이블에 기록하고, 아직 적용되지 않은 마이그레이션만 순서대로 실행합니다.
+ * 이미 적용된 마이그레이션의 내용이 바뀌면 시작을 중단합니다. 여러 서버가 동시에 시작해도 이름 락으로 한 곳만 실행합니다.
+ *
+ * <p>DDL은 트랜잭션으로 묶이지 않으므로 각 단계는 다시 실행해도 안전해야 합니다.
+ * 이미 있는 컬럼/인덱스 추가와 이미 없는 인덱스 삭제 오류는 적용된 것으로 보고 넘어갑니다.
+ */
+public class SchemaMigrator {
+
+    private static final String LOCK_NAME = "shopsystem_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    private static final int ER_DUP_FIELDNAME = 1060;
+    private static final int ER_DUP_KEYNAME = 1061;
+    private static final int ER_CANT_DROP_FIELD_OR_KEY = 1091;
+    private static final int H2_DUPLICATE_COLUMN_NAME = 42121;
+    private static final int H2_INDEX_ALREADY_EXISTS = 42111;
+    private static final int H2_INDEX_NOT_FOUND = 42112;
+
+    /**
+     * 적용 순서대로 나열합니다. 한 번 배포한 마이그레이션은 수정하지 말고 새 버전을 추가하세요.
+     * 온라인 DDL 옵션은 실행할 때 저장소에 맞게 붙이므로 여기에는 쓰지 않습니다 (체크섬도 저장소와 무관).
+     */
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Add transactions.txn_id for idempotent economy writes",
+                    "ALTER TABLE transactions ADD COLUMN txn_id VARCHAR(36) NULL AFTER id",
+                    "CREATE UNIQUE INDEX uk_txn_id ON transactions (txn_id)"),
+            new Migration(2, "Add player_balances.version for cross-server balance sync",
+                    "ALTER TABLE player_balances ADD COLUMN version BIGINT NOT NULL DEFAULT 0 AFTER balance"),
+            new Migration(3, "Index transactions by (uuid, timestamp) for per-player history",
+                    "CREATE INDEX idx_uuid_timestamp ON transactions (uuid, timestamp)",
+                    // Left prefix of the new index
+                    "DROP INDEX idx_uuid ON transactions"),
+            new Migration(4, "Index price_history by (item_id, timestamp) for /shop history",
+                    "CREATE INDEX idx_item_timestamp ON price_history (item_id, timestamp)",
+                    "DROP INDEX idx_item ON price_history"),
+            new Migration(5, "Index player_balances by balance for leaderboard queries",
+                    "CREATE INDEX idx_balance ON player_balances (balance)"));
+
+    private final DatabaseManager database;
+    private final Logger logger;
+
+    public SchemaMigrator(DatabaseManager database, Logger logger) {
+        this.database = database;
+        this.logger = logger;
+    }
+
+    /**
+     * 대기 중인 마이그레이션을 적용합니다
+     *
+     * @throws SQLException 락을 얻지 못했거나, 적용된 마이그레이션이 변경되었거나, 실행에 실패한 경우
+     */
+    public void migrate(Connection conn) throws SQLException {
+        execute(conn, """
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version INT PRIMARY KEY,
+                        description VARCHAR(200) NOT NULL,
+                        checksum BIGINT NOT NULL,
+                        execution_ms INT NOT NULL,
+                        applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                """);
+
+        if (!database.tryNamedLock(conn, LOCK_NAME, LOCK_TIMEOUT_SECONDS)) {
+            throw new SQLException("Timed out waiting for another server to finish schema migrations");
+        }
+        try {
+            Map<Integer, Long> applied = loadApplied(conn);
+            int latest = 0;
+            for (Migration migration : MIGRATIONS) {
+                Long checksum = applied.get(migration.version);
+                if (checksum != null) {
+                    if (checksum != migration.checksum) {
+                        throw new SQLException("Schema migration " + migration.version + " (" + migration.description
+                                + ") was changed after it was applied");
+                    }
+                } else {
+                    apply(conn, migration);
+                }
+                latest = migration.version;
+            }
+
+            for (int version : applied.keySet()) {
+                if (version > latest) {
+                    logger.log(Level.WARNING, "Database schema version " + version
+                            + " is newer than this plugin knows about (" + latest + ")");
+                }
+            }
+        } finally {
+            database.releaseNamedLock(conn, LOCK_NAME);
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        long start = System.currentTimeMillis();
+        for (String sql : migration.statements) {
+            try {
+                execute(conn, database.getBackend().withOnlineDdl(sql));
+            } catch (SQLException e) {
+                if (!isAlreadyApplied(e)) {
+                    throw new SQLException("Schema migration " + migration.version + " failed: " + e.getMessage(), e);
+                }
+                // Done by an earlier, interrupted run or by the CREATE TABLE of a fresh install
+                logger.log(Level.FINE, "Skipping already applied step of migration " + migration.version + ": "
+                        + e.getMessage());
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            stmt.setInt(1, migration.version);
+            stmt.setString(2, migration.description);
+            stmt.setLong(3, migration.checksum);
+            stmt.setInt(4, (int) Math.min(Integer.MAX_VALUE, elapsed));
+            stmt.executeUpdate();
+        }
+        logger.log(Level.INFO, "Applied schema migration " + migration.version + ": " + migration.description + " ("
+                + elapsed + "ms)");
+    }
+
+    private Map<Integer, Long> loadApplied(Connection conn) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT version, checksum FROM schema_version");
+                ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private static boolean isAlreadyApplied(SQLException e) {
+        int code = e.getErrorCode();
+        return code == ER_DUP_FIELDNAME || code == ER_DUP_KEYNAME || code == ER_CANT_DROP_FIELD_OR_KEY
+                || code == H2_DUPLICATE_COLUMN_NAME || code == H2_INDEX_ALREADY_EXISTS || code == H2_INDEX_NOT_FOUND;
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.executeUpdate();
+        }
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final List<String> statements;
+        private final long checksum;
+
+        private Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = List.of(statements);
+
+            CRC32 crc = new CRC32();
+            for (String sql : statements) {
+                crc.update(sql.getBytes(StandardCharsets.UTF_8));
+                crc.update('\n');
+            }
+            this.checksum = crc.getValue();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package me.minseok.shopsystem.database;
+
+import com.zaxxer.hikari.HikariConfig;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * 저장소 종류별 연결 설정과 SQL 방언 차이
+ * H2는 MySQL 호환 모드로 열어 ON DUPLICATE KEY UPDATE, INSERT IGNORE, ENUM 등 기존 SQL을 그대로 사용합니다.
+ * 차이가 나는 부분(이름 락, 스트리밍 조회, 온라인 DDL 옵션)만 여기서 처리합니다.
+ */
+public enum StorageBackend {
+
+    /**
+     * 여러 서버가 공유하는 MySQL (기본값)
+     */
+    MYSQL {
+        @Override
+        void configure(HikariConfig config, Settings settings) {
+            config.setJdbcUrl("jdbc:mysql://" + settings.host + ":" + settings.port + "/" + settings.database);
+            config.setUsername(settings.username);
+            config.setPassword(settings.password);
+            config.setMaximumPoolSize(settings.poolSizeOr(10));
+            config.setMinimumIdle(settings.minIdleOr(2));
+
+            // Performance settings
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", "250");
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+            config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        }
+
+        @Override
+        public int getStreamingFetchSize() {
+            // Connector/J streams rows one by one with this fetch size instead of buffering the whole result
+            return Integer.MIN_VALUE;
+        }
+
+        @Override
+        public String withOnlineDdl(String statement) {
+            // Build columns and indexes in place without blocking reads and writes
+            return statement.startsWith("ALTER TABLE")
+                    ? statement + ", ALGORITHM=INPLACE, LOCK=NONE"
+                    : statement + " ALGORITHM=INPLACE LOCK=NONE";
+        }
+    },
+
+    /**
+     * 플러그인 폴더의 H2 파일 (단일 서버용, 네트워크 왕복 없음)
+     */
+    H2 {
+        @Override
+        void configure(HikariConfig config, Settings settings) {
+            File file = new File(settings.dataFolder, settings.database);
+            config.setJdbcUrl("jdbc:h2:file:" + file.getAbsolutePath() + H2_OPTIONS);
+            config.setMaximumPoolSize(settings.poolSizeOr(4));
+            config.setMinimumIdle(settings.minIdleOr(1));
+        }
+    },
+
+    /**
+     * 메모리 전용 H2 (벤치마크/부하 테스트용, 종료하면 모든 데이터가 사라집니다)
+     */
+    MEMORY {
+        @Override
+        void configure(HikariConfig config, Settings settings) {
+            // DB_CLOSE_DELAY keeps the database alive while the pool recycles connections
+            config.setJdbcUrl("jdbc:h2:mem:" + settings.database + ";DB_CLOSE_DELAY=-1" + H2_OPTIONS);
+            config.setMaximumPoolSize(settings.poolSizeOr(4));
+            config.setMinimumIdle(settings.minIdleOr(1));
+        }
+    };
+
+    // DAY is a keyword in H2 but a column of transactions_daily
+    private static final String H2_OPTIONS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=DAY";
+
+    /**
+     * 설정 값(mysql, h2, memory)으로 찾습니다
+     *
+     * @throws IllegalArgumentException 알 수 없는 값
+     */
+    public static StorageBackend fromConfig(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    abstract void configure(HikariConfig config, Settings settings);
+
+    /**
+     * 여러 서버가 같은 DB를 공유할 수 있는지 (아니면 서버 간 이름 락이 필요 없음)
+     */
+    public boolean isShared() {
+        return this == MYSQL;
+    }
+
+    /**
+     * 큰 결과를 한 번에 메모리에 올리지 않고 읽기 위한 fetch size
+     */
+    public int getStreamingFetchSize() {
+        return 1000;
+    }
+
+    /**
+     * DDL 문에 온라인 변경 옵션을 붙입니다 (지원하지 않는 저장소는 그대로)
+     */
+    public String withOnlineDdl(String statement) {
+        return statement;
+    }
+
+    /**
+     * 연결 설정 값
+     */
+    public static final class Settings {
+        private final String host;
+        private final int port;
+        private final String database;
+        private final String username;
+        private final String password;
+        private final File dataFolder;
+        private final int poolSize;
+        private final int minIdle;
+
+        /**
+         * @param database   MySQL 데이터베이스 이름, H2 파일/메모리 DB 이름
+         * @param dataFolder H2 파일을 둘 폴더
+         * @param poolSize   최대 커넥션 수 (0 이하이면 저장소 기본값)
+         * @param minIdle    유지할 최소 유휴 커넥션 수 (0 미만이면 저장소 기본값)
+         */
+        public Settings(String host, int port, String database, String username, String password, File dataFolder,
+                int poolSize, int minIdle) {
+            this.host = host;
+            this.port = port;
+            this.database = database;
+            this.username = username;
+            this.password = password;
+            this.dataFolder = dataFolder;
+            this.poolSize = poolSize;
+            this.minIdle = minIdle;
+        }
+
+        private int poolSizeOr(int fallback) {
+            return poolSize > 0 ? poolSize : fallback;
+        }
+
+        private int minIdleOr(int fallback) {
+            return minIdle >= 0 ? minIdle : fallback;
+        }
+    }
+}
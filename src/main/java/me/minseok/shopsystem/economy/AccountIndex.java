@@ -0,0 +1,174 @@
+package me.minseok.shopsystem.economy;
+
+import me.minseok.shopsystem.database.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 존재하는 계정 UUID 집합
+ * UUID 하나를 long 두 개로 저장하는 open addressing 테이블이라 HashSet&lt;UUID&gt;보다 훨씬 작습니다.
+ * 다른 서버에서 만든 계정은 모를 수 있으므로, 없다는 결과는 DB로 다시 확인해야 합니다.
+ */
+public class AccountIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final float MAX_LOAD = 0.6f;
+
+    private final Logger logger;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // slots[2i] = most significant bits, slots[2i + 1] = least significant bits; (0, 0) marks an empty slot
+    private long[] slots = new long[INITIAL_CAPACITY * 2];
+    private int mask = INITIAL_CAPACITY - 1;
+    private int size;
+    private boolean containsNil;
+    private volatile boolean loaded;
+
+    public AccountIndex(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * player_balances의 모든 uuid를 스트리밍으로 읽어 채웁니다
+     * 메인 스레드에서 호출하지 마세요.
+     */
+    public void load(DatabaseManager database) {
+        long start = System.currentTimeMillis();
+        int count = 0;
+        try (Connection conn = database.getConnection();
+                PreparedStatement stmt = conn.prepareStatement("SELECT uuid FROM player_balances",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J streams rows one by one with this fetch size instead of buffering the whole table
+            stmt.setFetchSize(database.getStreamingFetchSize());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    try {
+                        add(UUID.fromString(rs.getString(1)));
+                        count++;
+                    } catch (IllegalArgumentException e) {
+                        logger.log(Level.WARNING, "Skipping malformed uuid in player_balances: " + rs.getString(1));
+                    }
+                }
+            }
+            loaded = true;
+            logger.log(Level.INFO, "Indexed " + count + " accounts in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to load account index, falling back to DB lookups: " + e.getMessage(), e);
+        }
+    }
+
+    public boolean contains(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        lock.readLock().lock();
+        try {
+            if (msb == 0 && lsb == 0) {
+                return containsNil;
+            }
+            int i = indexOf(msb, lsb, mask);
+            while (true) {
+                long m = slots[i * 2];
+                long l = slots[i * 2 + 1];
+                if (m == 0 && l == 0) {
+                    return false;
+                }
+                if (m == msb && l == lsb) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 새로 추가되었으면 true
+     */
+    public boolean add(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        lock.writeLock().lock();
+        try {
+            if (msb == 0 && lsb == 0) {
+                boolean added = !containsNil;
+                containsNil = true;
+                return added;
+            }
+            if (!insert(slots, mask, msb, lsb)) {
+                return false;
+            }
+            size++;
+            if (size > (mask + 1) * MAX_LOAD) {
+                resize();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size + (containsNil ? 1 : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 시작 시 전체 스캔이 끝났는지 여부
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    private void resize() {
+        int capacity = (mask + 1) * 2;
+        long[] grown = new long[capacity * 2];
+        int grownMask = capacity - 1;
+        for (int i = 0; i <= mask; i++) {
+            long m = slots[i * 2];
+            long l = slots[i * 2 + 1];
+            if (m != 0 || l != 0) {
+                insert(grown, grownMask, m, l);
+            }
+        }
+        slots = grown;
+        mask = grownMask;
+    }
+
+    private static boolean insert(long[] table, int mask, long msb, long lsb) {
+        int i = indexOf(msb, lsb, mask);
+        while (true) {
+            long m = table[i * 2];
+            long l = table[i * 2 + 1];
+            if (m == 0 && l == 0) {
+                table[i * 2] = msb;
+                table[i * 2 + 1] = lsb;
+                return true;
+            }
+            if (m == msb && l == lsb) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private static int indexOf(long msb, long lsb, int mask) {
+        // Version 4 UUIDs are already random, but mix anyway so other versions spread evenly
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
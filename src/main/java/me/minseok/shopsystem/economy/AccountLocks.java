@@ -0,0 +1,170 @@
+package me.minseok.shopsystem.economy;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 계정(UUID)별 잔액 변경을 직렬화하는 스트라이프 락
+ * 같은 UUID의 변경은 항상 같은 락을 거치므로 순서대로 처리되고, 다른 스트라이프의 계정은 서로 기다리지 않습니다.
+ * 한 플레이어에게 입금이 몰려도 InnoDB 행 락이 아니라 여기서 줄을 서게 됩니다.
+ */
+public class AccountLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    // Threads holding or waiting for each stripe
+    private final AtomicIntegerArray depth;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxDepth = new AtomicLong();
+
+    /**
+     * @param stripes 스트라이프 수 (2의 거듭제곱으로 올림)
+     */
+    public AccountLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, Math.min(stripes, 1 << 16)) * 2 - 1);
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.depth = new AtomicIntegerArray(size);
+    }
+
+    /**
+     * 계정 하나의 락을 잡습니다. try-with-resources로 사용하세요.
+     */
+    public Guard lock(UUID uuid) {
+        int stripe = stripeOf(uuid);
+        acquire(stripe);
+        return new Guard(this, new int[] { stripe });
+    }
+
+    /**
+     * 두 계정의 락을 항상 스트라이프 번호 순서로 잡습니다 (송금용, 교착 상태 방지)
+     */
+    public Guard lockBoth(UUID a, UUID b) {
+        int first = stripeOf(a);
+        int second = stripeOf(b);
+        if (first == second) {
+            acquire(first);
+            return new Guard(this, new int[] { first });
+        }
+        return acquireAll(new int[] { Math.min(first, second), Math.max(first, second) });
+    }
+
+    /**
+     * 여러 계정의 락을 스트라이프 번호 순서로 한꺼번에 잡습니다 (일괄 입금용)
+     * lockBoth와 같은 순서이므로 송금과 섞여도 교착 상태가 생기지 않습니다.
+     */
+    public Guard lockAll(Collection<UUID> uuids) {
+        return acquireAll(uuids.stream().mapToInt(this::stripeOf).distinct().sorted().toArray());
+    }
+
+    private Guard acquireAll(int[] stripes) {
+        int held = 0;
+        try {
+            for (int stripe : stripes) {
+                acquire(stripe);
+                held++;
+            }
+        } catch (RuntimeException e) {
+            for (int i = held - 1; i >= 0; i--) {
+                release(stripes[i]);
+            }
+            throw e;
+        }
+        return new Guard(this, stripes);
+    }
+
+    public int stripeOf(UUID uuid) {
+        int h = uuid.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void acquire(int stripe) {
+        int queued = depth.incrementAndGet(stripe);
+        maxDepth.accumulateAndGet(queued, Math::max);
+
+        ReentrantLock lock = locks[stripe];
+        if (!lock.tryLock()) {
+            contended.increment();
+            long start = System.nanoTime();
+            lock.lock();
+            long waited = System.nanoTime() - start;
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+        acquisitions.increment();
+    }
+
+    private void release(int stripe) {
+        locks[stripe].unlock();
+        depth.decrementAndGet(stripe);
+    }
+
+    public int getStripeCount() {
+        return locks.length;
+    }
+
+    /**
+     * 스트라이프의 현재 대기열 길이 (락을 가진 스레드 포함)
+     */
+    public int getQueueDepth(int stripe) {
+        return depth.get(stripe);
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getContended() {
+        return contended.sum();
+    }
+
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    /**
+     * 잡은 락을 해제하는 핸들
+     */
+    public static final class Guard implements AutoCloseable {
+        private final AccountLocks owner;
+        // Ascending; released in reverse
+        private final int[] stripes;
+        private boolean closed;
+
+        private Guard(AccountLocks owner, int[] stripes) {
+            this.owner = owner;
+            this.stripes = stripes;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                owner.release(stripes[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package me.minseok.shopsystem.economy;
+
+import me.minseok.shopsystem.database.DatabaseExecutor;
+import me.minseok.shopsystem.database.DatabaseManager;
+import me.minseok.shopsystem.messaging.BalanceSyncPublisher;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 접속 중인 플레이어의 잔액을 메모리에 보관하는 write-behind 캐시
+ * 조회는 메모리에서 처리하고, 변경분(delta)은 dirty 큐를 거쳐 백그라운드에서 일괄 반영합니다.
+ */
+public class BalanceCache {
+
+    private final DatabaseManager database;
+    private final Logger logger;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final BlockingQueue<Entry> dirtyQueue;
+    private final BalanceSyncPublisher publisher;
+    private final EconomyJournal journal;
+    private final AtomicLong remoteApplied = new AtomicLong();
+    private final AtomicLong remoteStale = new AtomicLong();
+
+    // Set when an entry could not be queued; the next flush then sweeps the cache for unqueued changes
+    private volatile boolean overflowed;
+
+    /**
+     * @param journal DB 장애 중 저널에 기록된 변경분을 잔액에 포함하고, 종료 시 반영하지 못한 변경분을 넘길 저널
+     */
+    public BalanceCache(DatabaseManager database, BalanceSyncPublisher publisher, EconomyJournal journal,
+            Logger logger, int maxDirty) {
+        this.database = database;
+        this.publisher = publisher;
+        this.journal = journal;
+        this.logger = logger;
+        this.dirtyQueue = new ArrayBlockingQueue<>(Math.max(16, maxDirty));
+    }
+
+    /**
+     * 백그라운드 flusher를 시작합니다
+     *
+     * @param executor        flush를 실행할 DB 실행기 (거래 대기열)
+     * @param intervalSeconds flush 주기 (초)
+     */
+    public void start(DatabaseExecutor executor, int intervalSeconds) {
+        long period = 20L * Math.max(1, intervalSeconds);
+        executor.repeat(DatabaseExecutor.Lane.TRADE, this::flush, period, period);
+        logger.log(Level.INFO, "Balance cache flusher started (interval: " + intervalSeconds + "s)");
+    }
+
+    public Entry get(UUID uuid) {
+        return entries.get(uuid);
+    }
+
+    /**
+     * 미리 읽어둔 DB 잔액으로 캐시 항목을 만듭니다 (이미 있으면 유지)
+     * 저널에 남아 있는 미반영 변경분도 잔액에 포함합니다.
+     */
+    public void prime(UUID uuid, long storedBalance, long version) {
+        entries.compute(uuid, (key, existing) -> {
+            if (existing != null) {
+                // Left over from a quit whose changes are still waiting for MySQL: the player is back
+                synchronized (existing) {
+                    existing.evicted = false;
+                }
+                return existing;
+            }
+            long journaled = journal.pendingFor(uuid);
+            Entry entry = new Entry(uuid, storedBalance + journaled, version);
+            entry.journalDelta = journaled;
+            return entry;
+        });
+    }
+
+    /**
+     * 남은 변경분을 반영한 뒤 캐시에서 제거합니다 (퇴장 시)
+     * DB에 반영할 수 없으면 변경분을 저널로 넘기고, 저널도 받을 수 없으면 다음 flush에서 다시 시도합니다.
+     */
+    public void evict(UUID uuid) {
+        Entry entry = entries.get(uuid);
+        if (entry == null) {
+            return;
+        }
+
+        List<Entry> single = new ArrayList<>(1);
+        single.add(entry);
+        if (write(single)) {
+            entries.remove(uuid, entry);
+            return;
+        }
+
+        boolean handedOff;
+        synchronized (entry) {
+            // Transaction rows for these changes already went through the transaction log
+            handedOff = entry.pendingDelta == 0
+                    || journal.appendAdjust(entry.uuid, entry.pendingDelta, null, null, null);
+            if (handedOff) {
+                entry.journalDelta += entry.pendingDelta;
+                entry.pendingDelta = 0;
+            } else {
+                entry.evicted = true;
+            }
+        }
+        if (handedOff) {
+            // The next load primes the balance with whatever the journal still holds for this player
+            entries.remove(uuid, entry);
+            return;
+        }
+
+        logger.log(Level.WARNING, "Keeping cached balance for " + uuid + " until the next successful flush");
+        requeue(entry);
+    }
+
+    /**
+     * 잔액을 차감합니다
+     *
+     * @return 차감 후 잔액, 잔액이 부족하면 -1
+     */
+    long withdraw(Entry entry, long amount) {
+        long newBalance;
+        synchronized (entry) {
+            if (entry.balance < amount) {
+                return -1;
+            }
+            entry.balance -= amount;
+            entry.pendingDelta -= amount;
+            newBalance = entry.balance;
+        }
+        markDirty(entry);
+        return newBalance;
+    }
+
+    /**
+     * 잔액을 증가시킵니다
+     *
+     * @return 입금 후 잔액
+     */
+    long deposit(Entry entry, long amount) {
+        long newBalance;
+        synchronized (entry) {
+            entry.balance += amount;
+            entry.pendingDelta += amount;
+            newBalance = entry.balance;
+        }
+        markDirty(entry);
+        return newBalance;
+    }
+
+    /**
+     * 저널에 기록된 변경을 캐시 잔액에 반영합니다 (DB 반영은 저널이 나중에 처리)
+     * 차감(delta < 0)은 잔액이 충분할 때만 반영합니다.
+     *
+     * @return 반영 후 잔액, 잔액이 부족하면 -1
+     */
+    long applyJournaled(Entry entry, long delta) {
+        synchronized (entry) {
+            if (delta < 0 && entry.balance + delta < 0) {
+                return -1;
+            }
+            entry.balance += delta;
+            entry.journalDelta += delta;
+            return entry.balance;
+        }
+    }
+
+    /**
+     * 저널 기록이 DB에 반영되었을 때 호출합니다
+     * 반영된 변경분을 저널 몫에서 빼고, 더 새로운 버전이면 DB 잔액으로 맞춥니다.
+     */
+    public void settleJournal(UUID uuid, long delta, long storedBalance, long version) {
+        Entry entry = entries.get(uuid);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            entry.journalDelta -= delta;
+            if (version > entry.version) {
+                entry.balance = storedBalance + entry.pendingDelta + entry.journalDelta;
+                entry.version = version;
+            } else {
+                // The stored balance we last saw already includes this change
+                entry.balance -= delta;
+            }
+        }
+    }
+
+    /**
+     * 확정된 DB 잔액으로 캐시 값을 맞춥니다 (아직 반영되지 않은 변경분은 유지)
+     * 이미 더 새로운 버전을 알고 있으면 무시합니다.
+     *
+     * @return 반영되었으면 true
+     */
+    boolean refresh(Entry entry, long storedBalance, long version) {
+        synchronized (entry) {
+            if (version <= entry.version) {
+                return false;
+            }
+            entry.balance = storedBalance + entry.pendingDelta + entry.journalDelta;
+            entry.version = version;
+            return true;
+        }
+    }
+
+    /**
+     * 다른 서버에서 확정된 잔액 변경을 반영합니다 (BALANCE_CHANGED)
+     * 순서가 뒤바뀌어 도착한 오래된 버전은 버립니다.
+     *
+     * @return 캐시된 플레이어이고 더 새로운 버전이라 반영되었으면 true
+     */
+    public boolean applyRemote(UUID uuid, long storedBalance, long version) {
+        Entry entry = entries.get(uuid);
+        if (entry == null) {
+            return false;
+        }
+        if (refresh(entry, storedBalance, version)) {
+            remoteApplied.incrementAndGet();
+            return true;
+        }
+        remoteStale.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 한 플레이어의 남은 변경분을 즉시 DB에 반영합니다
+     *
+     * @return 반영에 성공했거나 반영할 변경분이 없으면 true
+     */
+    boolean flush(Entry entry) {
+        List<Entry> single = new ArrayList<>(1);
+        single.add(entry);
+        return write(single);
+    }
+
+    private void markDirty(Entry entry) {
+        synchronized (entry) {
+            if (entry.queued) {
+                return;
+            }
+            entry.queued = true;
+        }
+        offer(entry);
+    }
+
+    private void requeue(Entry entry) {
+        synchronized (entry) {
+            if (entry.pendingDelta == 0 || entry.queued) {
+                return;
+            }
+            entry.queued = true;
+        }
+        offer(entry);
+    }
+
+    private void offer(Entry entry) {
+        if (!dirtyQueue.offer(entry)) {
+            // Queue is full: never write on the caller (often the main thread), leave it to the next flush
+            synchronized (entry) {
+                entry.queued = false;
+            }
+            overflowed = true;
+        }
+    }
+
+    /**
+     * dirty 큐에 쌓인 변경분을 한 번의 배치로 DB에 반영합니다
+     * 큐가 가득 차 들어가지 못한 항목이 있었으면 캐시 전체에서 남은 변경분을 찾아 함께 반영합니다.
+     */
+    public void flush() {
+        List<Entry> batch = new ArrayList<>(dirtyQueue.size());
+        dirtyQueue.drainTo(batch);
+        if (overflowed) {
+            overflowed = false;
+            for (Entry entry : entries.values()) {
+                synchronized (entry) {
+                    if (entry.pendingDelta == 0 || entry.queued) {
+                        continue;
+                    }
+                    entry.queued = true;
+                }
+                batch.add(entry);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        if (!write(batch)) {
+            // Put failed entries back so the next cycle retries them
+            for (Entry entry : batch) {
+                requeue(entry);
+            }
+            return;
+        }
+
+        // Players who quit while MySQL was down leave once their changes are stored
+        for (Entry entry : batch) {
+            entries.computeIfPresent(entry.uuid, (uuid, current) -> {
+                synchronized (current) {
+                    return current == entry && current.evicted && current.pendingDelta == 0 ? null : current;
+                }
+            });
+        }
+    }
+
+    /**
+     * 캐시된 모든 변경분을 즉시 반영합니다 (플러그인 종료 시)
+     * DB에 반영할 수 없으면 남은 변경분을 저널로 넘겨 다음 시작 때 반영되게 합니다.
+     */
+    public void flushAll() {
+        dirtyQueue.clear();
+        List<Entry> all = new ArrayList<>(entries.values());
+        if (write(all)) {
+            return;
+        }
+
+        int lost = 0;
+        for (Entry entry : all) {
+            synchronized (entry) {
+                if (entry.pendingDelta == 0) {
+                    continue;
+                }
+                // Transaction rows for these changes already went through the transaction log
+                if (journal.appendAdjust(entry.uuid, entry.pendingDelta, null, null, null)) {
+                    entry.journalDelta += entry.pendingDelta;
+                    entry.pendingDelta = 0;
+                } else {
+                    lost++;
+                }
+            }
+        }
+        if (lost > 0) {
+            logger.log(Level.SEVERE, "Failed to flush " + lost + " cached balances on shutdown; unsaved changes were lost");
+        } else {
+            logger.log(Level.WARNING, "MySQL unavailable on shutdown; cached balance changes were journaled for replay");
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int dirtyCount() {
+        return dirtyQueue.size();
+    }
+
+    public long getRemoteApplied() {
+        return remoteApplied.get();
+    }
+
+    public long getRemoteStale() {
+        return remoteStale.get();
+    }
+
+    private boolean write(List<Entry> batch) {
+        List<Entry> written = new ArrayList<>(batch.size());
+        long[] deltas = new long[batch.size()];
+
+        for (Entry entry : batch) {
+            synchronized (entry) {
+                entry.queued = false;
+                if (entry.pendingDelta == 0) {
+                    continue;
+                }
+                deltas[written.size()] = entry.pendingDelta;
+                written.add(entry);
+                entry.pendingDelta = 0;
+            }
+        }
+
+        if (written.isEmpty()) {
+            return true;
+        }
+
+        String sql = "UPDATE player_balances SET balance = balance + ?, version = version + 1 WHERE uuid = ?";
+        Map<UUID, long[]> stored = new HashMap<>();
+        try (Connection conn = database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < written.size(); i++) {
+                        Money.bind(stmt, 1, deltas[i]);
+                        stmt.setString(2, written.get(i).uuid.toString());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+
+                // Read back the committed state while the rows are still locked by this transaction
+                StringBuilder select = new StringBuilder(
+                        "SELECT uuid, balance, version FROM player_balances WHERE uuid IN (");
+                for (int i = 0; i < written.size(); i++) {
+                    select.append(i == 0 ? "?" : ", ?");
+                }
+                select.append(')');
+                try (PreparedStatement stmt = conn.prepareStatement(select.toString())) {
+                    for (int i = 0; i < written.size(); i++) {
+                        stmt.setString(i + 1, written.get(i).uuid.toString());
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            stored.put(UUID.fromString(rs.getString("uuid")),
+                                    new long[] { Money.read(rs, "balance"), rs.getLong("version") });
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to flush " + written.size() + " cached balances: " + e.getMessage(), e);
+
+            // Restore the deltas we took so nothing is lost
+            for (int i = 0; i < written.size(); i++) {
+                Entry entry = written.get(i);
+                synchronized (entry) {
+                    entry.pendingDelta += deltas[i];
+                }
+            }
+            return false;
+        }
+
+        for (Entry entry : written) {
+            long[] row = stored.get(entry.uuid);
+            if (row != null) {
+                refresh(entry, row[0], row[1]);
+                publisher.publish(entry.uuid, row[0], row[1]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 캐시된 플레이어 한 명의 잔액 상태
+     */
+    public static final class Entry {
+        private final UUID uuid;
+        private long balance;
+        private long pendingDelta;
+        private long journalDelta;
+        private long version;
+        private boolean queued;
+        private boolean evicted;
+
+        private Entry(UUID uuid, long balance, long version) {
+            this.uuid = uuid;
+            this.balance = balance;
+            this.version = version;
+        }
+
+        public UUID getUuid() {
+            return uuid;
+        }
+
+        public synchronized long getBalance() {
+            return balance;
+        }
+
+        public synchronized long getVersion() {
+            return version;
+        }
+    }
+}
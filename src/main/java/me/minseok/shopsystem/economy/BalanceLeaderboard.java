@@ -0,0 +1,307 @@
+package me.minseok.shopsystem.economy;
+
+import me.minseok.shopsystem.database.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 잔액 순위표 (순위 통계가 가능한 skip list, 잔액 내림차순)
+ * 시작 시 player_balances를 한 번 읽고, 이후에는 확정된 잔액 변경마다 갱신합니다.
+ * 페이지 조회는 O(log n + 페이지 크기), 한 플레이어의 순위 조회는 O(log n)이며 SQL을 사용하지 않습니다.
+ * 같은 플레이어의 변경은 버전으로 순서를 맞추므로 늦게 도착한 오래된 값은 무시됩니다.
+ */
+public class BalanceLeaderboard {
+
+    private static final int MAX_LEVEL = 32;
+
+    private final Logger logger;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Node> nodes = new HashMap<>();
+    private final Node head = new Node(null, 0, 0, MAX_LEVEL);
+    private int level = 1;
+    private int length;
+    private volatile boolean loaded;
+
+    public BalanceLeaderboard(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * player_balances 전체를 스트리밍으로 읽어 채웁니다
+     * 메인 스레드에서 호출하지 마세요.
+     */
+    public void load(DatabaseManager database) {
+        long start = System.currentTimeMillis();
+        int count = 0;
+        try (Connection conn = database.getConnection();
+                PreparedStatement stmt = conn.prepareStatement("SELECT uuid, balance, version FROM player_balances",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(database.getStreamingFetchSize());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    try {
+                        update(UUID.fromString(rs.getString("uuid")), Money.read(rs, "balance"), rs.getLong("version"));
+                        count++;
+                    } catch (IllegalArgumentException e) {
+                        logger.log(Level.WARNING, "Skipping malformed uuid in player_balances: " + rs.getString("uuid"));
+                    }
+                }
+            }
+            loaded = true;
+            logger.log(Level.INFO, "Ranked " + count + " balances in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to load balance leaderboard: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 플레이어의 확정된 잔액을 반영합니다 (이미 더 높은 버전이 있으면 무시)
+     */
+    public void update(UUID uuid, long balance, long version) {
+        lock.writeLock().lock();
+        try {
+            Node current = nodes.get(uuid);
+            if (current != null) {
+                if (current.version > version || current.balance == balance) {
+                    if (current.version < version) {
+                        current.version = version;
+                    }
+                    return;
+                }
+                delete(current);
+            }
+            nodes.put(uuid, insert(uuid, balance, version));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param offset 건너뛸 순위 수 (0부터)
+     * @return 순위 순서대로 최대 limit개
+     */
+    public List<Entry> page(int offset, int limit) {
+        List<Entry> entries = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            Node node = nodeAt(offset + 1);
+            int rank = offset + 1;
+            while (node != null && entries.size() < limit) {
+                entries.add(new Entry(node.uuid, node.balance, rank++));
+                node = node.next[0];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return entries;
+    }
+
+    /**
+     * @return 1부터 시작하는 순위, 순위표에 없으면 0
+     */
+    public int rankOf(UUID uuid) {
+        lock.readLock().lock();
+        try {
+            Node target = nodes.get(uuid);
+            if (target == null) {
+                return 0;
+            }
+            int rank = 0;
+            Node x = head;
+            for (int i = level - 1; i >= 0; i--) {
+                while (x.next[i] != null && compare(x.next[i], target) <= 0) {
+                    rank += x.span[i];
+                    x = x.next[i];
+                }
+                if (x == target) {
+                    return rank;
+                }
+            }
+            return 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 순위표에 있는 잔액, 없으면 -1
+     */
+    public long balanceOf(UUID uuid) {
+        lock.readLock().lock();
+        try {
+            Node node = nodes.get(uuid);
+            return node != null ? node.balance : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 시작 시 전체 스캔이 끝났는지 여부
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @param rank 1부터 시작하는 순위
+     */
+    private Node nodeAt(int rank) {
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    private Node insert(UUID uuid, long balance, long version) {
+        Node node = new Node(uuid, balance, version, randomLevel());
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && compare(x.next[i], node) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = node.next.length;
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = length;
+            }
+            level = nodeLevel;
+        }
+
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            // update[i].span[i] covered the gap the new node now splits
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        length++;
+        return node;
+    }
+
+    private void delete(Node node) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], node) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        length--;
+    }
+
+    /**
+     * 잔액이 높을수록 앞, 같으면 UUID 순 (모든 노드가 서로 다른 위치를 갖도록)
+     */
+    private static int compare(Node a, Node b) {
+        int byBalance = Long.compare(b.balance, a.balance);
+        return byBalance != 0 ? byBalance : a.uuid.compareTo(b.uuid);
+    }
+
+    private static int randomLevel() {
+        // p = 1/4 per extra level
+        int nodeLevel = 1;
+        while (nodeLevel < MAX_LEVEL && (ThreadLocalRandom.current().nextInt() & 3) == 0) {
+            nodeLevel++;
+        }
+        return nodeLevel;
+    }
+
+    private static final class Node {
+        private final UUID uuid;
+        private final long balance;
+        private long version;
+        private final Node[] next;
+        private final int[] span;
+
+        private Node(UUID uuid, long balance, long version, int level) {
+            this.uuid = uuid;
+            this.balance = balance;
+            this.version = version;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+
+    /**
+     * 순위표 한 줄
+     */
+    public static final class Entry {
+        private final UUID uuid;
+        private final long balance;
+        private final int rank;
+
+        private Entry(UUID uuid, long balance, int rank) {
+            this.uuid = uuid;
+            this.balance = balance;
+            this.rank = rank;
+        }
+
+        public UUID getUuid() {
+            return uuid;
+        }
+
+        public long getBalance() {
+            return balance;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+    }
+}
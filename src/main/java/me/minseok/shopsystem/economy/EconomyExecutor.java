@@ -0,0 +1,79 @@
+package me.minseok.shopsystem.economy;
+
+import me.minseok.shopsystem.database.DatabaseExecutor;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 경제 작업 전용 실행기
+ * DB 작업은 공용 DB 실행기의 거래(TRADE) 대기열에서 실행하고, 결과 처리는 mainThread()/onMain()으로 메인 스레드에 돌려보냅니다.
+ */
+public class EconomyExecutor {
+
+    private final Plugin plugin;
+    private final Logger logger;
+    private final DatabaseExecutor database;
+    private final Executor mainThread;
+
+    public EconomyExecutor(Plugin plugin, DatabaseExecutor database) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.database = database;
+        this.mainThread = task -> {
+            if (Bukkit.isPrimaryThread()) {
+                task.run();
+            } else if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, task);
+            }
+        };
+    }
+
+    /**
+     * 작업을 DB 실행기의 거래 대기열에서 실행합니다. 검사 예외는 CompletionException으로 감싸집니다.
+     * 대기열이 가득 차면 RejectedExecutionException으로 실패합니다.
+     */
+    public <T> CompletableFuture<T> supply(Callable<T> task) {
+        return database.supply(DatabaseExecutor.Lane.TRADE, task);
+    }
+
+    /**
+     * 메인 스레드에서 실행하는 Executor (이미 메인 스레드면 바로 실행)
+     * 플러그인이 비활성화된 뒤에는 작업을 버립니다.
+     */
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * 작업이 끝나면 메인 스레드에서 결과를 처리합니다. 실패하면 로그만 남깁니다.
+     */
+    public <T> void onMain(CompletableFuture<T> future, Consumer<? super T> action) {
+        onMain(future, action, error -> {
+        });
+    }
+
+    /**
+     * 작업이 끝나면 메인 스레드에서 성공/실패를 처리합니다
+     */
+    public <T> void onMain(CompletableFuture<T> future, Consumer<? super T> action, Consumer<Throwable> onError) {
+        future.whenCompleteAsync((result, error) -> {
+            if (error == null) {
+                action.accept(result);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            logger.log(Level.SEVERE, "Async economy task failed: " + cause.getMessage(), cause);
+            onError.accept(cause);
+        }, mainThread);
+    }
+}
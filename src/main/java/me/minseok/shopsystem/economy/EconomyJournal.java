@@ -0,0 +1,688 @@
+package me.minseok.shopsystem.economy;
+
+import me.minseok.shopsystem.database.DatabaseManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * DB 장애 시 잔액 변경을 먼저 기록해두는 로컬 write-ahead 저널 (메모리 맵 파일)
+ * 기록은 fsync를 모아서(group commit) 확정하고, 백그라운드 스레드가 순서대로 MySQL에 반영합니다.
+ * 반영 위치는 economy_journal 테이블에 서버별로 같은 트랜잭션 안에서 저장되므로 재시작 후 다시 재생해도 두 번 반영되지 않습니다.
+ */
+public class EconomyJournal {
+
+    /**
+     * 저널 기록이 DB에 반영된 뒤 호출됩니다 (반영 스레드에서 호출)
+     * 재시작 전에 이미 반영되어 있던 기록은 version이 0으로 전달됩니다.
+     */
+    public interface ApplyListener {
+        void applied(UUID uuid, long delta, long balance, long version);
+    }
+
+    private static final int MAGIC = 0x534A4E4C; // "SJNL"
+    private static final int FORMAT = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int NEXT_SEQ_OFFSET = 8;
+    private static final int APPLIED_SEQ_OFFSET = 16;
+    private static final int RECORD_OVERHEAD = 8; // length + crc
+
+    private static final byte KIND_ADJUST = 1;
+    private static final byte KIND_LOG = 2;
+
+    private static final String ENSURE_STATE_SQL = "INSERT IGNORE INTO economy_journal (server, applied_seq) VALUES (?, 0)";
+    private static final String LOCK_STATE_SQL = "SELECT applied_seq FROM economy_journal WHERE server = ? FOR UPDATE";
+    private static final String UPDATE_STATE_SQL = "UPDATE economy_journal SET applied_seq = ? WHERE server = ?";
+    private static final String ADJUST_SQL = "INSERT INTO player_balances (uuid, balance, version) VALUES (?, ?, 1) "
+            + "ON DUPLICATE KEY UPDATE balance = balance + ?, version = version + 1";
+    private static final String BALANCE_SQL = "SELECT balance, version FROM player_balances WHERE uuid = ?";
+
+    private final DatabaseManager database;
+    private final Logger logger;
+    private final File file;
+    private final String serverName;
+    private final int capacity;
+    private final long fsyncIntervalMillis;
+    private final int replayBatchSize;
+    private final long retryIntervalMillis;
+    private final boolean enabled;
+
+    private final Map<UUID, Long> unapplied = new ConcurrentHashMap<>();
+    private final Object syncMonitor = new Object();
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int readPos = HEADER_SIZE;
+    private int writePos = HEADER_SIZE;
+    private long nextSeq = 1;
+    private long appliedSeq;
+    private int pendingRecords;
+    private int pendingAdjusts;
+
+    // Guarded by syncMonitor
+    private long durableSeq;
+    private boolean syncRequested;
+
+    private volatile boolean running;
+    private volatile boolean degraded;
+    private volatile ApplyListener listener;
+    private Thread syncer;
+    private Thread applier;
+
+    /**
+     * @param capacityBytes       저널 파일 최대 크기; 반영되지 않은 기록이 이만큼 쌓이면 새 기록을 거부합니다
+     * @param fsyncIntervalMillis fsync 한 번에 모을 기록을 기다리는 시간 (0이면 바로 fsync)
+     * @param replayBatchSize     DB 트랜잭션 하나로 반영할 최대 기록 수
+     * @param retryIntervalMillis DB 반영 실패 후 다시 시도하기까지의 간격
+     */
+    public EconomyJournal(DatabaseManager database, Logger logger, File file, String serverName, boolean enabled,
+            int capacityBytes, long fsyncIntervalMillis, int replayBatchSize, long retryIntervalMillis) {
+        this.database = database;
+        this.logger = logger;
+        this.file = file;
+        this.serverName = serverName;
+        this.enabled = enabled;
+        this.capacity = Math.max(HEADER_SIZE + 4096, capacityBytes);
+        this.fsyncIntervalMillis = Math.max(0, fsyncIntervalMillis);
+        this.replayBatchSize = Math.max(1, replayBatchSize);
+        this.retryIntervalMillis = Math.max(100, retryIntervalMillis);
+    }
+
+    /**
+     * 저널 파일을 열고, 남아 있는 기록을 읽은 뒤 fsync/반영 스레드를 시작합니다
+     * DB가 연결된 상태(플러그인 시작 시)에서 호출하세요.
+     */
+    public void start() throws IOException {
+        if (!enabled) {
+            logger.log(Level.INFO, "Economy journal disabled");
+            return;
+        }
+
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = Math.max(capacity, channel.size());
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (buffer.getInt(0) == MAGIC && buffer.getInt(4) != FORMAT) {
+            throw new IOException("Unsupported journal format " + buffer.getInt(4) + " in " + file);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT);
+            buffer.putLong(NEXT_SEQ_OFFSET, 1);
+            buffer.putLong(APPLIED_SEQ_OFFSET, 0);
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.force();
+        }
+        nextSeq = buffer.getLong(NEXT_SEQ_OFFSET);
+        appliedSeq = buffer.getLong(APPLIED_SEQ_OFFSET);
+
+        int recovered = scan();
+
+        // A deleted or replaced journal must not reuse sequence numbers the DB already counts as applied
+        long stored = loadAppliedSeq();
+        if (nextSeq <= stored) {
+            nextSeq = stored + 1;
+            buffer.putLong(NEXT_SEQ_OFFSET, nextSeq);
+        }
+        durableSeq = nextSeq - 1;
+
+        running = true;
+        syncer = new Thread(this::runSyncer, "ShopCore-Journal-Sync");
+        syncer.setDaemon(true);
+        syncer.start();
+        applier = new Thread(this::runApplier, "ShopCore-Journal-Apply");
+        applier.setDaemon(true);
+        applier.start();
+
+        logger.log(Level.INFO, "Economy journal opened (" + (size / 1024) + "KB"
+                + (recovered > 0 ? ", replaying " + recovered + " records" : "") + ")");
+    }
+
+    public void setListener(ApplyListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 잔액 변경을 저널에 기록하고 디스크에 확정될 때까지 기다립니다
+     *
+     * @param delta 잔액 증감 (최소 단위)
+     * @param type  transactions.type 값, null이면 거래 기록 없이 잔액만 반영
+     * @param txnId 거래 ID; 같은 ID의 거래가 이미 DB에 있으면 반영할 때 건너뜁니다 (null이면 확인 안 함)
+     * @return 기록되었으면 true, 저널이 꺼져 있거나 가득 찼으면 false
+     */
+    public boolean appendAdjust(UUID uuid, long delta, String type, String description, UUID txnId) {
+        return append(KIND_ADJUST, uuid, delta, type, description, txnId);
+    }
+
+    /**
+     * 거래 기록(transactions 행)만 저널에 남깁니다
+     */
+    public boolean appendLog(UUID uuid, String type, long amount, String description, UUID txnId) {
+        return append(KIND_LOG, uuid, amount, type, description, txnId);
+    }
+
+    /**
+     * 아직 DB에 반영되지 않은 이 플레이어의 잔액 증감 합계
+     */
+    public long pendingFor(UUID uuid) {
+        Long pending = unapplied.get(uuid);
+        return pending != null ? pending : 0;
+    }
+
+    /**
+     * 반영 대기 중인 잔액 변경 기록이 있으면 true (새 변경도 순서를 지키려면 저널을 거쳐야 함)
+     * 거래 기록(appendLog)만 남아 있을 때는 잔액에 영향이 없으므로 false입니다.
+     */
+    public synchronized boolean hasBacklog() {
+        return pendingAdjusts > 0;
+    }
+
+    /**
+     * 마지막 DB 반영 시도가 실패했으면 true
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 스레드를 멈추고, DB가 살아 있으면 남은 기록을 반영한 뒤 파일을 닫습니다
+     */
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        synchronized (syncMonitor) {
+            syncMonitor.notifyAll();
+        }
+        for (Thread thread : new Thread[] { syncer, applier }) {
+            thread.interrupt();
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Last chance to hand pending records to MySQL; whatever is left replays on the next start
+        try {
+            while (applyBatch()) {
+                // keep going until empty
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Economy journal kept " + getPendingRecords()
+                    + " records for replay on next start: " + e.getMessage());
+        }
+
+        synchronized (this) {
+            buffer.force();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to close economy journal: " + e.getMessage(), e);
+        }
+        logger.log(Level.INFO, "Economy journal closed (appended: " + appended.get() + ", applied: "
+                + applied.get() + ", rejected: " + rejected.get() + ")");
+    }
+
+    private boolean append(byte kind, UUID uuid, long amount, String type, String description, UUID txnId) {
+        if (!running) {
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        byte[] typeBytes = type != null ? type.getBytes(StandardCharsets.UTF_8) : null;
+        if (description != null && description.length() > 255) {
+            description = description.substring(0, 255);
+        }
+        byte[] descriptionBytes = description != null ? description.getBytes(StandardCharsets.UTF_8) : null;
+        int length = 8 + 1 + 16 + 16 + 8 + 2 + (typeBytes != null ? typeBytes.length : 0)
+                + 2 + (descriptionBytes != null ? descriptionBytes.length : 0);
+
+        long seq;
+        synchronized (this) {
+            if (writePos + RECORD_OVERHEAD + length > buffer.capacity()) {
+                rejected.incrementAndGet();
+                logger.log(Level.SEVERE, "Economy journal is full (" + pendingRecords + " records waiting for MySQL)");
+                return false;
+            }
+
+            seq = nextSeq++;
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            payload.putLong(seq);
+            payload.put(kind);
+            payload.putLong(uuid.getMostSignificantBits());
+            payload.putLong(uuid.getLeastSignificantBits());
+            payload.putLong(txnId != null ? txnId.getMostSignificantBits() : 0);
+            payload.putLong(txnId != null ? txnId.getLeastSignificantBits() : 0);
+            payload.putLong(amount);
+            putBytes(payload, typeBytes);
+            putBytes(payload, descriptionBytes);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+
+            int end = writePos + RECORD_OVERHEAD + length;
+            buffer.put(writePos + RECORD_OVERHEAD, payload.array());
+            buffer.putInt(writePos + 4, (int) crc.getValue());
+            buffer.putInt(writePos, length);
+            if (end + 4 <= buffer.capacity()) {
+                // Terminate the log so recovery never reads stale records from before a compaction
+                buffer.putInt(end, 0);
+            }
+            buffer.putLong(NEXT_SEQ_OFFSET, nextSeq);
+            writePos = end;
+            pendingRecords++;
+            if (kind == KIND_ADJUST) {
+                pendingAdjusts++;
+                // Counted before the applier can see the record, so its decrement always finds it
+                unapplied.merge(uuid, amount, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+        appended.incrementAndGet();
+
+        awaitDurable(seq);
+        return true;
+    }
+
+    private static void putBytes(ByteBuffer payload, byte[] bytes) {
+        if (bytes == null) {
+            payload.putShort((short) -1);
+            return;
+        }
+        payload.putShort((short) bytes.length);
+        payload.put(bytes);
+    }
+
+    private static String getString(ByteBuffer payload) {
+        short length = payload.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void awaitDurable(long seq) {
+        synchronized (syncMonitor) {
+            syncRequested = true;
+            syncMonitor.notifyAll();
+            while (durableSeq < seq && running) {
+                try {
+                    syncMonitor.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void runSyncer() {
+        while (running) {
+            synchronized (syncMonitor) {
+                while (!syncRequested && running) {
+                    try {
+                        syncMonitor.wait();
+                    } catch (InterruptedException e) {
+                        // close() wakes us up
+                    }
+                }
+                syncRequested = false;
+            }
+
+            // Give concurrent appends a moment to join this fsync
+            if (fsyncIntervalMillis > 0) {
+                try {
+                    Thread.sleep(fsyncIntervalMillis);
+                } catch (InterruptedException e) {
+                    // Sync what we have
+                }
+            }
+
+            long target;
+            synchronized (this) {
+                target = nextSeq - 1;
+            }
+            buffer.force();
+            fsyncs.incrementAndGet();
+
+            synchronized (syncMonitor) {
+                durableSeq = Math.max(durableSeq, target);
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void runApplier() {
+        while (running) {
+            try {
+                if (applyBatch()) {
+                    continue;
+                }
+                Thread.sleep(200);
+            } catch (SQLException e) {
+                if (!degraded) {
+                    degraded = true;
+                    logger.log(Level.WARNING, "MySQL unavailable, economy changes are journaled locally ("
+                            + getPendingRecords() + " pending): " + e.getMessage());
+                }
+                try {
+                    Thread.sleep(retryIntervalMillis);
+                } catch (InterruptedException ie) {
+                    // close() handles the rest
+                }
+            } catch (InterruptedException e) {
+                // close() handles the rest
+            }
+        }
+    }
+
+    /**
+     * 반영되지 않은 기록을 한 트랜잭션으로 반영합니다
+     *
+     * @return 반영한 기록이 있으면 true
+     */
+    private boolean applyBatch() throws SQLException {
+        List<Record> batch = peek(replayBatchSize);
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        List<Record> appliedRecords = new ArrayList<>(batch.size());
+        try (Connection conn = database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(ENSURE_STATE_SQL)) {
+                    stmt.setString(1, serverName);
+                    stmt.executeUpdate();
+                }
+                long stored = 0;
+                try (PreparedStatement stmt = conn.prepareStatement(LOCK_STATE_SQL)) {
+                    stmt.setString(1, serverName);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            stored = rs.getLong("applied_seq");
+                        }
+                    }
+                }
+
+                for (Record record : batch) {
+                    // Anything at or below the stored position was committed before a crash or restart
+                    if (record.seq <= stored) {
+                        continue;
+                    }
+                    apply(conn, record);
+                    appliedRecords.add(record);
+                }
+
+                try (PreparedStatement stmt = conn.prepareStatement(UPDATE_STATE_SQL)) {
+                    stmt.setLong(1, Math.max(stored, batch.get(batch.size() - 1).seq));
+                    stmt.setString(2, serverName);
+                    stmt.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        markApplied(batch);
+        applied.addAndGet(appliedRecords.size());
+        if (degraded) {
+            degraded = false;
+            logger.log(Level.INFO, "MySQL reachable again, replaying journaled economy changes");
+        }
+
+        ApplyListener current = listener;
+        for (Record record : batch) {
+            if (record.kind != KIND_ADJUST) {
+                continue;
+            }
+            unapplied.computeIfPresent(record.uuid, (uuid, sum) -> sum - record.amount == 0 ? null : sum - record.amount);
+            // version stays 0 for records the DB already had; the cache still needs to settle them
+            if (current != null) {
+                current.applied(record.uuid, record.amount, record.balance, record.version);
+            }
+        }
+        return true;
+    }
+
+    private void apply(Connection conn, Record record) throws SQLException {
+        if (record.kind == KIND_ADJUST) {
+            // A known txn_id means the original ledger call committed after all; only read the result
+            boolean fresh = record.type == null || EconomyLedger.insertTransaction(conn, record.txnId, record.uuid,
+                    record.type, Math.abs(record.amount), record.description);
+            if (fresh) {
+                try (PreparedStatement stmt = conn.prepareStatement(ADJUST_SQL)) {
+                    stmt.setString(1, record.uuid.toString());
+                    Money.bind(stmt, 2, record.amount);
+                    Money.bind(stmt, 3, record.amount);
+                    stmt.executeUpdate();
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(BALANCE_SQL)) {
+                stmt.setString(1, record.uuid.toString());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        record.balance = Money.read(rs, "balance");
+                        record.version = rs.getLong("version");
+                    }
+                }
+            }
+        } else {
+            EconomyLedger.insertTransaction(conn, record.txnId, record.uuid, record.type, record.amount,
+                    record.description);
+        }
+    }
+
+    private long loadAppliedSeq() {
+        try (Connection conn = database.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT applied_seq FROM economy_journal WHERE server = ?")) {
+            stmt.setString(1, serverName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong("applied_seq") : 0;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to read journal position: " + e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 시작 시 파일에 남아 있는 기록을 읽어 쓰기 위치와 미반영 합계를 복구합니다
+     *
+     * @return 반영 대기 중인 기록 수
+     */
+    private synchronized int scan() {
+        int pos = HEADER_SIZE;
+        long lastSeq = 0;
+        int recovered = 0;
+        int adjusts = 0;
+        readPos = -1;
+
+        while (pos + RECORD_OVERHEAD <= buffer.capacity()) {
+            Record record = read(pos);
+            // A torn write or a record from before a compaction ends the log
+            if (record == null || record.seq <= lastSeq) {
+                break;
+            }
+            lastSeq = record.seq;
+            if (record.seq > appliedSeq) {
+                if (readPos < 0) {
+                    readPos = pos;
+                }
+                recovered++;
+                if (record.kind == KIND_ADJUST) {
+                    adjusts++;
+                    unapplied.merge(record.uuid, record.amount, (a, b) -> a + b == 0 ? null : a + b);
+                }
+            }
+            pos = record.end;
+        }
+
+        writePos = pos;
+        if (readPos < 0) {
+            readPos = pos;
+        }
+        pendingRecords = recovered;
+        pendingAdjusts = adjusts;
+        nextSeq = Math.max(nextSeq, lastSeq + 1);
+        return recovered;
+    }
+
+    private synchronized List<Record> peek(int max) {
+        List<Record> records = new ArrayList<>(Math.min(max, pendingRecords));
+        int pos = readPos;
+        while (records.size() < max && pos < writePos) {
+            Record record = read(pos);
+            if (record == null) {
+                break;
+            }
+            records.add(record);
+            pos = record.end;
+        }
+        return records;
+    }
+
+    private synchronized void markApplied(List<Record> batch) {
+        Record last = batch.get(batch.size() - 1);
+        readPos = last.end;
+        appliedSeq = last.seq;
+        pendingRecords -= batch.size();
+        for (Record record : batch) {
+            if (record.kind == KIND_ADJUST) {
+                pendingAdjusts--;
+            }
+        }
+        buffer.putLong(APPLIED_SEQ_OFFSET, appliedSeq);
+
+        // Everything has reached MySQL: start over at the front of the file
+        if (readPos == writePos) {
+            readPos = HEADER_SIZE;
+            writePos = HEADER_SIZE;
+            buffer.putInt(HEADER_SIZE, 0);
+        }
+    }
+
+    private Record read(int pos) {
+        int length = buffer.getInt(pos);
+        if (length <= 0 || pos + RECORD_OVERHEAD + length > buffer.capacity()) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(pos + RECORD_OVERHEAD, bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if ((int) crc.getValue() != buffer.getInt(pos + 4)) {
+            return null;
+        }
+
+        ByteBuffer payload = ByteBuffer.wrap(bytes);
+        long seq = payload.getLong();
+        byte kind = payload.get();
+        UUID uuid = new UUID(payload.getLong(), payload.getLong());
+        long txnMost = payload.getLong();
+        long txnLeast = payload.getLong();
+        UUID txnId = txnMost == 0 && txnLeast == 0 ? null : new UUID(txnMost, txnLeast);
+        long amount = payload.getLong();
+        String type = getString(payload);
+        String description = getString(payload);
+        return new Record(seq, kind, uuid, txnId, amount, type, description, pos + RECORD_OVERHEAD + length);
+    }
+
+    public synchronized int getPendingRecords() {
+        return pendingRecords;
+    }
+
+    public synchronized int getUsedBytes() {
+        return writePos - HEADER_SIZE;
+    }
+
+    public int getCapacity() {
+        return buffer != null ? buffer.capacity() - HEADER_SIZE : 0;
+    }
+
+    public long getAppended() {
+        return appended.get();
+    }
+
+    public long getApplied() {
+        return applied.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getFsyncs() {
+        return fsyncs.get();
+    }
+
+    private static final class Record {
+        private final long seq;
+        private final byte kind;
+        private final UUID uuid;
+        private final UUID txnId;
+        private final long amount;
+        private final String type;
+        private final String description;
+        private final int end;
+
+        // Filled in when an ADJUST record is applied
+        private long balance;
+        private long version;
+
+        private Record(long seq, byte kind, UUID uuid, UUID txnId, long amount, String type, String description,
+                int end) {
+            this.seq = seq;
+            this.kind = kind;
+            this.uuid = uuid;
+            this.txnId = txnId;
+            this.amount = amount;
+            this.type = type;
+            this.description = description;
+            this.end = end;
+        }
+    }
+}
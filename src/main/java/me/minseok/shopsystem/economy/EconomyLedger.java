@@ -0,0 +1,460 @@
+package me.minseok.shopsystem.economy;
+
+import me.minseok.shopsystem.database.DatabaseManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 잔액 변경을 하나의 커넥션/트랜잭션으로 처리하는 원장
+ * 잔액 확인, 잔액 변경, 거래 기록, 변경 후 잔액 조회가 모두 같은 트랜잭션 안에서 이루어집니다.
+ * 모든 변경은 거래 ID(transactions.txn_id, unique)를 가지므로 연결 오류 후 다시 시도해도 안전합니다.
+ */
+public class EconomyLedger {
+
+    private static final String WITHDRAW_SQL = "UPDATE player_balances SET balance = balance - ?, version = version + 1 "
+            + "WHERE uuid = ? AND balance >= ?";
+    private static final String DEPOSIT_SQL = "INSERT INTO player_balances (uuid, balance, version) VALUES (?, ?, 1) "
+            + "ON DUPLICATE KEY UPDATE balance = balance + ?, version = version + 1";
+    private static final String LOG_SQL = "INSERT INTO transactions (txn_id, uuid, type, amount, description) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final String BALANCE_SQL = "SELECT balance, version FROM player_balances WHERE uuid = ?";
+    private static final String TXN_EXISTS_SQL = "SELECT 1 FROM transactions WHERE txn_id = ?";
+    private static final String ENSURE_SQL = "INSERT IGNORE INTO player_balances (uuid, balance) VALUES (?, 0.00)";
+    private static final String LOCK_SQL = "SELECT balance, version FROM player_balances WHERE uuid = ? FOR UPDATE";
+    private static final String ADJUST_SQL = "UPDATE player_balances SET balance = balance + ?, version = version + 1 "
+            + "WHERE uuid = ?";
+    private static final int MAX_ATTEMPTS = 3;
+    static final int BULK_CHUNK_SIZE = 500;
+
+    private final DatabaseManager database;
+
+    public EconomyLedger(DatabaseManager database) {
+        this.database = database;
+    }
+
+    /**
+     * 잔액이 충분할 때만 차감합니다 (UPDATE ... WHERE balance >= ?)
+     * 잔액이 부족하면 아무것도 기록하지 않고 현재 잔액과 함께 실패를 반환합니다.
+     *
+     * @param txnId 호출자가 만든 거래 ID; 같은 ID로 다시 호출하면 두 번 차감하지 않고 현재 잔액을 돌려줍니다
+     */
+    public Result withdraw(UUID uuid, long amount, String type, String description, UUID txnId) throws SQLException {
+        return retry(() -> {
+            try (Connection conn = database.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    // The transaction row goes first: its unique txn_id tells us an earlier attempt already committed
+                    if (!insertTransaction(conn, txnId, uuid, type, amount, description)) {
+                        Result current = read(conn, BALANCE_SQL, uuid, true);
+                        conn.rollback();
+                        return current;
+                    }
+
+                    int updated;
+                    try (PreparedStatement stmt = conn.prepareStatement(WITHDRAW_SQL)) {
+                        Money.bind(stmt, 1, amount);
+                        stmt.setString(2, uuid.toString());
+                        Money.bind(stmt, 3, amount);
+                        updated = stmt.executeUpdate();
+                    }
+
+                    if (updated == 0) {
+                        Result current = read(conn, BALANCE_SQL, uuid, false);
+                        conn.rollback();
+                        return current;
+                    }
+
+                    Result result = read(conn, BALANCE_SQL, uuid, true);
+                    conn.commit();
+                    return result;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * 입금합니다. 계정이 없으면 upsert로 함께 생성합니다.
+     *
+     * @param txnId 호출자가 만든 거래 ID; 같은 ID로 다시 호출하면 두 번 입금하지 않습니다
+     */
+    public Result deposit(UUID uuid, long amount, String type, String description, UUID txnId) throws SQLException {
+        return retry(() -> {
+            try (Connection conn = database.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    if (!insertTransaction(conn, txnId, uuid, type, amount, description)) {
+                        Result current = read(conn, BALANCE_SQL, uuid, true);
+                        conn.rollback();
+                        return current;
+                    }
+
+                    try (PreparedStatement stmt = conn.prepareStatement(DEPOSIT_SQL)) {
+                        stmt.setString(1, uuid.toString());
+                        Money.bind(stmt, 2, amount);
+                        Money.bind(stmt, 3, amount);
+                        stmt.executeUpdate();
+                    }
+
+                    Result result = read(conn, BALANCE_SQL, uuid, true);
+                    conn.commit();
+                    return result;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * 두 계정 사이에서 금액을 이동합니다
+     * 받는 계정은 트랜잭션 밖에서 미리 만들고, 트랜잭션 안에서는 두 행을 uuid 순서로 잠그기 전에 어떤 행 락도 잡지 않습니다.
+     * 그래서 A→B, B→A 송금이 동시에 일어나도 교착 상태가 생기지 않습니다.
+     * 거래 기록은 보내는 쪽 uuid로 TRANSFER 한 건만, 잔액을 바꾼 뒤 마지막에 남깁니다.
+     *
+     * @param txnId 호출자가 만든 거래 ID; 이미 처리된 ID면 현재 잔액과 함께 성공을 돌려줍니다
+     */
+    public TransferResult transfer(UUID from, UUID to, long amount, String description, UUID txnId)
+            throws SQLException {
+        return retry(() -> {
+            try (Connection conn = database.getConnection()) {
+                // Autocommitted, so the lock INSERT IGNORE takes on an existing row is gone before the ordered locks
+                try (PreparedStatement stmt = conn.prepareStatement(ENSURE_SQL)) {
+                    stmt.setString(1, to.toString());
+                    stmt.executeUpdate();
+                }
+
+                conn.setAutoCommit(false);
+                try {
+                    // An earlier attempt may already have committed; a plain read takes no row locks
+                    if (transactionExists(conn, txnId)) {
+                        TransferResult current = new TransferResult(true, read(conn, BALANCE_SQL, from, true),
+                                read(conn, BALANCE_SQL, to, true));
+                        conn.rollback();
+                        return current;
+                    }
+
+                    // Lock both rows in a fixed order before anything else is locked
+                    boolean fromFirst = from.toString().compareTo(to.toString()) < 0;
+                    Result first = read(conn, LOCK_SQL, fromFirst ? from : to, true);
+                    Result second = read(conn, LOCK_SQL, fromFirst ? to : from, true);
+                    Result fromRow = fromFirst ? first : second;
+                    Result toRow = fromFirst ? second : first;
+
+                    if (fromRow.balance < amount) {
+                        conn.rollback();
+                        return new TransferResult(false, fromRow, toRow);
+                    }
+
+                    adjust(conn, from, -amount);
+                    adjust(conn, to, amount);
+                    if (!insertTransaction(conn, txnId, from, "TRANSFER", amount, description)) {
+                        // A concurrent attempt with the same ID committed first
+                        conn.rollback();
+                        return new TransferResult(true, read(conn, BALANCE_SQL, from, true),
+                                read(conn, BALANCE_SQL, to, true));
+                    }
+                    conn.commit();
+
+                    // Rows are locked, so each adjust() bumped the version exactly once
+                    return new TransferResult(true,
+                            new Result(true, Money.subtract(fromRow.balance, amount), fromRow.version + 1),
+                            new Result(true, Money.add(toRow.balance, amount), toRow.version + 1));
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * 여러 계정에 같은 금액을 입금합니다
+     * 최대 BULK_CHUNK_SIZE개씩 트랜잭션 하나로 처리하며, 청크마다 다중 행 upsert 한 번과 다중 행 거래 기록 한 번만 실행합니다.
+     * 계정별 거래 ID는 batchId에서 만들어지므로 같은 batchId로 다시 호출하면 이미 입금된 계정은 건너뜁니다.
+     *
+     * @param applied 커밋된 청크의 계정별 입금 후 잔액/버전이 채워집니다 (중간 청크가 실패해도 앞 청크 결과는 남음)
+     */
+    public void depositAll(List<UUID> uuids, long amount, String type, String description, UUID batchId,
+            Map<UUID, Result> applied) throws SQLException {
+        for (int from = 0; from < uuids.size(); from += BULK_CHUNK_SIZE) {
+            List<UUID> chunk = uuids.subList(from, Math.min(uuids.size(), from + BULK_CHUNK_SIZE));
+            applied.putAll(retry(() -> depositChunk(chunk, amount, type, description, batchId)));
+        }
+    }
+
+    /**
+     * 일괄 입금에서 한 계정에 쓰이는 거래 ID
+     */
+    public static UUID bulkTxnId(UUID batchId, UUID uuid) {
+        return UUID.nameUUIDFromBytes((batchId + ":" + uuid).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Map<UUID, Result> depositChunk(List<UUID> chunk, long amount, String type, String description,
+            UUID batchId) throws SQLException {
+        try (Connection conn = database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Skip accounts an earlier attempt with the same batch already paid
+                Set<String> done = new HashSet<>();
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT txn_id FROM transactions WHERE txn_id IN (" + placeholders(chunk.size()) + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, bulkTxnId(batchId, chunk.get(i)).toString());
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            done.add(rs.getString("txn_id"));
+                        }
+                    }
+                }
+
+                List<UUID> pending = new ArrayList<>(chunk.size());
+                for (UUID uuid : chunk) {
+                    if (!done.contains(bulkTxnId(batchId, uuid).toString())) {
+                        pending.add(uuid);
+                    }
+                }
+
+                if (!pending.isEmpty()) {
+                    StringBuilder upsert = new StringBuilder("INSERT INTO player_balances (uuid, balance, version) VALUES ");
+                    StringBuilder log = new StringBuilder(
+                            "INSERT INTO transactions (txn_id, uuid, type, amount, description) VALUES ");
+                    for (int i = 0; i < pending.size(); i++) {
+                        upsert.append(i == 0 ? "(?, ?, 1)" : ", (?, ?, 1)");
+                        log.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+                    }
+                    upsert.append(" ON DUPLICATE KEY UPDATE balance = balance + VALUES(balance), version = version + 1");
+
+                    try (PreparedStatement stmt = conn.prepareStatement(upsert.toString())) {
+                        int index = 1;
+                        for (UUID uuid : pending) {
+                            stmt.setString(index++, uuid.toString());
+                            Money.bind(stmt, index++, amount);
+                        }
+                        stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(log.toString())) {
+                        int index = 1;
+                        for (UUID uuid : pending) {
+                            stmt.setString(index++, bulkTxnId(batchId, uuid).toString());
+                            stmt.setString(index++, uuid.toString());
+                            stmt.setString(index++, type);
+                            Money.bind(stmt, index++, amount);
+                            stmt.setString(index++, description);
+                        }
+                        stmt.executeUpdate();
+                    }
+                }
+
+                Map<UUID, Result> results = new HashMap<>();
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT uuid, balance, version FROM player_balances WHERE uuid IN ("
+                                + placeholders(chunk.size()) + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, chunk.get(i).toString());
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            results.put(UUID.fromString(rs.getString("uuid")),
+                                    new Result(true, Money.read(rs, "balance"), rs.getLong("version")));
+                        }
+                    }
+                }
+                conn.commit();
+                return results;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 연결이 끊기거나 교착 상태로 실패한 작업을 같은 거래 ID로 다시 시도합니다
+     * 거래 ID 덕분에 첫 시도가 실제로는 커밋되었더라도 두 번 반영되지 않습니다.
+     */
+    private <T> T retry(SqlCall<T> call) throws SQLException {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return call.run();
+            } catch (SQLException e) {
+                if (attempt >= MAX_ATTEMPTS || !isRetryable(e)) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(50L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    static boolean isRetryable(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        // 08xxx: connection exceptions, 40001: deadlock / serialization failure
+        return state != null && (state.startsWith("08") || state.equals("40001"));
+    }
+
+    static boolean isDuplicateKey(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException || e.getErrorCode() == 1062;
+    }
+
+    private static boolean transactionExists(Connection conn, UUID txnId) throws SQLException {
+        if (txnId == null) {
+            return false;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(TXN_EXISTS_SQL)) {
+            stmt.setString(1, txnId.toString());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private void adjust(Connection conn, UUID uuid, long delta) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(ADJUST_SQL)) {
+            Money.bind(stmt, 1, delta);
+            stmt.setString(2, uuid.toString());
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * 거래 기록을 남깁니다
+     *
+     * @return 기록했으면 true, 같은 거래 ID가 이미 있으면 false
+     */
+    static boolean insertTransaction(Connection conn, UUID txnId, UUID uuid, String type, long amount,
+            String description) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(LOG_SQL)) {
+            stmt.setString(1, txnId != null ? txnId.toString() : null);
+            stmt.setString(2, uuid.toString());
+            stmt.setString(3, type);
+            Money.bind(stmt, 4, amount);
+            stmt.setString(5, description);
+            stmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (txnId != null && isDuplicateKey(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private Result read(Connection conn, String sql, UUID uuid, boolean success) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, uuid.toString());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return new Result(success, 0, 0);
+                }
+                return new Result(success, Money.read(rs, "balance"), rs.getLong("version"));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlCall<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * 원장 처리 결과와 그 시점의 잔액/버전
+     * 버전은 player_balances.version 값이며 잔액이 바뀔 때마다 1씩 증가합니다.
+     */
+    public static final class Result {
+        private final boolean success;
+        private final long balance;
+        private final long version;
+
+        Result(boolean success, long balance, long version) {
+            this.success = success;
+            this.balance = balance;
+            this.version = version;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public long getBalance() {
+            return balance;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    public static final class TransferResult {
+        private final boolean success;
+        private final Result from;
+        private final Result to;
+
+        TransferResult(boolean success, Result from, Result to) {
+            this.success = success;
+            this.from = from;
+            this.to = to;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public long getFromBalance() {
+            return from.balance;
+        }
+
+        public long getToBalance() {
+            return to.balance;
+        }
+
+        public Result getFrom() {
+            return from;
+        }
+
+        public Result getTo() {
+            return to;
+        }
+    }
+}
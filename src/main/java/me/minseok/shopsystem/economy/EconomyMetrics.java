@@ -0,0 +1,135 @@
+package me.minseok.shopsystem.economy;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 경제 작업별 호출 수와 지연 시간 통계
+ * 작업 종류 × 호출 스레드(메인/비동기)마다 히스토그램을, 결과(상태)마다 카운터를 둡니다.
+ */
+public class EconomyMetrics {
+
+    public enum Operation {
+        BALANCE,
+        WITHDRAW,
+        DEPOSIT,
+        TRANSFER,
+        BULK_DEPOSIT,
+        TRANSACTION_LOG
+    }
+
+    public enum Caller {
+        MAIN,
+        ASYNC
+    }
+
+    private static final EconomyResult.Status[] STATUSES = EconomyResult.Status.values();
+
+    private final Logger logger;
+    private final boolean enabled;
+    private final LatencyHistogram[][] histograms;
+    private final LongAdder[][][] outcomes;
+
+    // Previous snapshots for the periodic summary, touched only by the summary task
+    private final LatencyHistogram.Snapshot[][] lastSummary;
+
+    public EconomyMetrics(Logger logger, boolean enabled) {
+        this.logger = logger;
+        this.enabled = enabled;
+
+        int operations = Operation.values().length;
+        int callers = Caller.values().length;
+        this.histograms = new LatencyHistogram[operations][callers];
+        this.outcomes = new LongAdder[operations][callers][STATUSES.length];
+        this.lastSummary = new LatencyHistogram.Snapshot[operations][callers];
+        for (int op = 0; op < operations; op++) {
+            for (int caller = 0; caller < callers; caller++) {
+                histograms[op][caller] = new LatencyHistogram();
+                for (int status = 0; status < STATUSES.length; status++) {
+                    outcomes[op][caller][status] = new LongAdder();
+                }
+            }
+        }
+    }
+
+    /**
+     * 주기적으로 직전 구간의 요약을 한 줄로 남깁니다
+     *
+     * @param intervalSeconds 요약 주기 (0 이하이면 사용 안 함)
+     */
+    public void startSummary(Plugin plugin, int intervalSeconds) {
+        if (!enabled || intervalSeconds <= 0) {
+            return;
+        }
+        long period = 20L * intervalSeconds;
+        plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, () -> logSummary(intervalSeconds),
+                period, period);
+    }
+
+    /**
+     * 측정 시작 시각 (비활성화 상태면 0)
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void record(Operation operation, EconomyResult.Status status, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        int caller = (Bukkit.isPrimaryThread() ? Caller.MAIN : Caller.ASYNC).ordinal();
+        histograms[operation.ordinal()][caller].record(elapsed);
+        outcomes[operation.ordinal()][caller][status.ordinal()].increment();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public LatencyHistogram.Snapshot snapshot(Operation operation, Caller caller) {
+        return histograms[operation.ordinal()][caller.ordinal()].snapshot();
+    }
+
+    public long getCount(Operation operation, Caller caller, EconomyResult.Status status) {
+        return outcomes[operation.ordinal()][caller.ordinal()][status.ordinal()].sum();
+    }
+
+    /**
+     * 마이크로초 값을 "1.23ms" 형식으로 표시합니다
+     */
+    public static String formatMillis(long micros) {
+        return String.format(Locale.ROOT, "%.2fms", micros / 1000.0);
+    }
+
+    private void logSummary(int intervalSeconds) {
+        StringBuilder line = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            for (Caller caller : Caller.values()) {
+                LatencyHistogram.Snapshot current = snapshot(operation, caller);
+                LatencyHistogram.Snapshot interval = current.since(lastSummary[operation.ordinal()][caller.ordinal()]);
+                lastSummary[operation.ordinal()][caller.ordinal()] = current;
+                if (interval.getCount() == 0) {
+                    continue;
+                }
+
+                line.append(line.length() == 0 ? "" : " | ")
+                        .append(operation.name().toLowerCase(Locale.ROOT)).append('/')
+                        .append(caller.name().toLowerCase(Locale.ROOT))
+                        .append(" n=").append(interval.getCount())
+                        .append(" p50=").append(formatMillis(interval.percentileMicros(50)))
+                        .append(" p99=").append(formatMillis(interval.percentileMicros(99)))
+                        .append(" p99.9=").append(formatMillis(interval.percentileMicros(99.9)));
+            }
+        }
+
+        if (line.length() > 0) {
+            logger.log(Level.INFO, "Economy latency (last " + intervalSeconds + "s): " + line);
+        }
+    }
+}
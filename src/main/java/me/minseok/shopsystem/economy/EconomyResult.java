@@ -0,0 +1,78 @@
+package me.minseok.shopsystem.economy;
+
+import net.milkbowl.vault.economy.EconomyResponse;
+
+/**
+ * 잔액 변경 결과 (금액은 모두 최소 단위)
+ * Vault의 EconomyResponse와 달리 double을 쓰지 않으며, 필요할 때 toResponse()로 변환합니다.
+ */
+public final class EconomyResult {
+
+    public enum Status {
+        SUCCESS,
+        INSUFFICIENT_FUNDS,
+        INVALID_REQUEST,
+        ERROR
+    }
+
+    private final Status status;
+    private final long amount;
+    private final long balance;
+    private final String error;
+
+    private EconomyResult(Status status, long amount, long balance, String error) {
+        this.status = status;
+        this.amount = amount;
+        this.balance = balance;
+        this.error = error;
+    }
+
+    public static EconomyResult success(long amount, long balance) {
+        return new EconomyResult(Status.SUCCESS, amount, balance, null);
+    }
+
+    public static EconomyResult insufficientFunds(long balance) {
+        return new EconomyResult(Status.INSUFFICIENT_FUNDS, 0, balance, "Insufficient funds");
+    }
+
+    public static EconomyResult invalid(String error) {
+        return new EconomyResult(Status.INVALID_REQUEST, 0, 0, error);
+    }
+
+    public static EconomyResult error(String error) {
+        return new EconomyResult(Status.ERROR, 0, 0, error);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+     * 처리 후 잔액 (실패 시 알려진 현재 잔액, 알 수 없으면 0)
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Vault API 호환용 변환
+     */
+    public EconomyResponse toResponse() {
+        EconomyResponse.ResponseType type = isSuccess()
+                ? EconomyResponse.ResponseType.SUCCESS
+                : EconomyResponse.ResponseType.FAILURE;
+        return new EconomyResponse(Money.toMajor(amount), Money.toMajor(balance), type, error);
+    }
+}
@@ -0,0 +1,127 @@
+package me.minseok.shopsystem.economy;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 지연 시간 히스토그램 (HdrHistogram 방식의 로그-선형 버킷, 마이크로초 단위)
+ * 2의 거듭제곱 구간마다 16개 버킷으로 나누므로 백분위 오차는 약 6% 이내이고, 기록은 락 없이 원자적 증가 한 번입니다.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS; // exact buckets for 0..31us
+    private static final int HALF = SUB_COUNT / 2;
+    private static final int MAX_MSB = 36; // ~19 hours; larger values land in the last bucket
+    private static final int BUCKETS = SUB_COUNT + (MAX_MSB - SUB_BITS + 1) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(indexOf(micros));
+        totalMicros.addAndGet(micros);
+        if (micros > maxMicros.get()) {
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, totalMicros.get(), maxMicros.get());
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_COUNT) {
+            return (int) micros;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(micros);
+        if (msb > MAX_MSB) {
+            return BUCKETS - 1;
+        }
+        int shift = msb - SUB_BITS + 1;
+        int mantissa = (int) (micros >>> shift); // HALF..SUB_COUNT-1
+        return SUB_COUNT + (msb - SUB_BITS) * HALF + (mantissa - HALF);
+    }
+
+    /**
+     * 버킷에 들어가는 가장 큰 값 (백분위는 보수적으로 이 값을 보고합니다)
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int msb = (index - SUB_COUNT) / HALF + SUB_BITS;
+        int mantissa = (index - SUB_COUNT) % HALF + HALF;
+        int shift = msb - SUB_BITS + 1;
+        return ((long) mantissa << shift) + (1L << shift) - 1;
+    }
+
+    /**
+     * 특정 시점의 히스토그램 복사본
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+
+        private Snapshot(long[] counts, long count, long totalMicros, long maxMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        /**
+         * 이전 스냅샷 이후에 기록된 값만 담은 스냅샷 (최대값은 누적 최대값 그대로)
+         */
+        public Snapshot since(Snapshot previous) {
+            if (previous == null) {
+                return this;
+            }
+            long[] delta = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                delta[i] = counts[i] - previous.counts[i];
+            }
+            return new Snapshot(delta, count - previous.count, totalMicros - previous.totalMicros, maxMicros);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        public long getMeanMicros() {
+            return count > 0 ? totalMicros / count : 0;
+        }
+
+        /**
+         * @param percentile 0~100
+         */
+        public long percentileMicros(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(highestValueOf(i), maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+    }
+}
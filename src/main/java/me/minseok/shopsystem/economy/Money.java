@@ -0,0 +1,130 @@
+package me.minseok.shopsystem.economy;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 고정 소수점 금액 유틸리티
+ * 모든 금액은 최소 단위(0.01원)의 long 값으로 다룹니다. 1,234.56원 = 123456
+ *
+ * 반올림 규칙:
+ * - double 변환(Vault API, 설정 값)과 배율 적용은 최소 단위 기준 HALF_EVEN (Math.rint)
+ * - 문자열 입력은 BigDecimal로 파싱한 뒤 소수점 둘째 자리에서 HALF_EVEN
+ * - 덧셈/뺄셈/수량 곱셈은 정확한 정수 연산이며 overflow 시 ArithmeticException
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final long MINOR_PER_MAJOR = 100;
+
+    private static final double MAX_MINOR = (double) Long.MAX_VALUE;
+
+    // Long.MAX_VALUE minor units is about 9.2e16 major; anything wider cannot fit after scaling
+    private static final int MAX_INTEGER_DIGITS = 17;
+    private static final int MIN_DECIMAL_SCALE = -18;
+    private static final int MAX_DECIMAL_SCALE = 18;
+
+    private Money() {
+    }
+
+    /**
+     * double 금액(원)을 최소 단위로 변환합니다
+     */
+    public static long ofMajor(double major) {
+        return toLong(major * MINOR_PER_MAJOR);
+    }
+
+    /**
+     * 최소 단위를 double 금액(원)으로 변환합니다 (Vault API, 플러그인 메시지 호환용)
+     */
+    public static double toMajor(long minor) {
+        return minor / (double) MINOR_PER_MAJOR;
+    }
+
+    /**
+     * 사용자 입력 문자열을 최소 단위로 변환합니다
+     *
+     * @throws NumberFormatException 숫자가 아니거나 범위를 벗어난 경우
+     */
+    public static long parse(String input) {
+        try {
+            return fromDecimal(new BigDecimal(input.trim()));
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + input);
+        }
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * 단가 x 수량
+     */
+    public static long times(long unitPrice, int quantity) {
+        return Math.multiplyExact(unitPrice, (long) quantity);
+    }
+
+    /**
+     * 금액에 배율을 적용합니다 (동적 가격 계산용)
+     */
+    public static long scale(long minor, double factor) {
+        return toLong(minor * factor);
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /**
+     * @throws ArithmeticException long 범위를 벗어난 금액
+     */
+    public static long fromDecimal(BigDecimal decimal) {
+        if (decimal == null) {
+            return 0;
+        }
+        // Reject before setScale, which would otherwise expand inputs like 1e999999999 or 1e-999999999 digit by digit
+        if (decimal.scale() < MIN_DECIMAL_SCALE || decimal.scale() > MAX_DECIMAL_SCALE
+                || decimal.precision() - decimal.scale() > MAX_INTEGER_DIGITS) {
+            throw new ArithmeticException("Amount out of range: " + decimal.toString());
+        }
+        return decimal.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * DECIMAL(15,2) 컬럼에 금액을 바인딩합니다
+     */
+    public static void bind(PreparedStatement stmt, int index, long minor) throws SQLException {
+        stmt.setBigDecimal(index, BigDecimal.valueOf(minor, SCALE));
+    }
+
+    /**
+     * DECIMAL(15,2) 컬럼에서 금액을 읽습니다 (NULL은 0)
+     */
+    public static long read(ResultSet rs, String column) throws SQLException {
+        return fromDecimal(rs.getBigDecimal(column));
+    }
+
+    /**
+     * 천 단위 구분 기호와 소수점 둘째 자리까지 표시합니다 (예: -1,234.50)
+     */
+    public static String format(long minor) {
+        long abs = Math.abs(minor);
+        String sign = minor < 0 ? "-" : "";
+        return String.format("%s%,d.%02d", sign, abs / MINOR_PER_MAJOR, abs % MINOR_PER_MAJOR);
+    }
+
+    private static long toLong(double scaled) {
+        if (Double.isNaN(scaled) || Double.isInfinite(scaled) || Math.abs(scaled) >= MAX_MINOR) {
+            throw new ArithmeticException("Amount out of range: " + scaled);
+        }
+        return (long) Math.rint(scaled);
+    }
+}
@@ -0,0 +1,216 @@
+package me.minseok.shopsystem.economy;
+
+import me.minseok.shopsystem.database.DatabaseExecutor;
+import me.minseok.shopsystem.database.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 오래된 transactions 행을 transactions_daily(uuid, type, 날짜별 합계)로 모으고 원본을 지우는 작업
+ * id 기준 키셋 페이지 단위로 "집계 + 삭제"를 한 트랜잭션에 처리하므로 중간에 멈춰도 두 번 집계되지 않고,
+ * 청크가 작아 InnoDB 락을 오래 잡지 않습니다. 여러 서버 중 한 곳만 실행되도록 이름 락을 사용합니다.
+ */
+public class TransactionCompactor {
+
+    private static final String LOCK_NAME = "shopsystem_transaction_compaction";
+
+    // Today in DB time; the cutoff is midnight of the oldest day kept raw, so only whole days are rolled up
+    private static final String TODAY_SQL = "SELECT CURRENT_DATE";
+    private static final String MAX_ID_SQL = "SELECT MAX(id) FROM transactions WHERE timestamp < ?";
+    private static final String CHUNK_END_SQL = "SELECT MAX(id) FROM (SELECT id FROM transactions "
+            + "WHERE id > ? AND id <= ? ORDER BY id LIMIT ?) chunk";
+    private static final String ROLLUP_SQL = "INSERT INTO transactions_daily (uuid, type, day, tx_count, total_amount) "
+            + "SELECT uuid, type, CAST(timestamp AS DATE), COUNT(*), SUM(amount) FROM transactions "
+            + "WHERE id > ? AND id <= ? AND timestamp < ? GROUP BY uuid, type, CAST(timestamp AS DATE) "
+            + "ON DUPLICATE KEY UPDATE tx_count = tx_count + VALUES(tx_count), "
+            + "total_amount = total_amount + VALUES(total_amount)";
+    private static final String DELETE_SQL = "DELETE FROM transactions WHERE id > ? AND id <= ? AND timestamp < ?";
+
+    private final DatabaseManager database;
+    private final Logger logger;
+    private final int retentionDays;
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong compacted = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+
+    private volatile boolean stopped;
+
+    /**
+     * @param retentionDays 원본 행을 보관할 일수 (이보다 오래된 날짜의 행을 집계 후 삭제)
+     * @param chunkSize     한 트랜잭션에서 처리할 최대 행 수
+     * @param pauseMillis   청크 사이 대기 시간 (다른 쿼리에 양보)
+     */
+    public TransactionCompactor(DatabaseManager database, Logger logger, int retentionDays, int chunkSize,
+            long pauseMillis) {
+        this.database = database;
+        this.logger = logger;
+        this.retentionDays = Math.max(1, retentionDays);
+        this.chunkSize = Math.max(100, chunkSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+    }
+
+    /**
+     * @param intervalMinutes 실행 주기 (첫 실행은 서버 시작 1분 뒤)
+     */
+    public void start(DatabaseExecutor executor, int intervalMinutes) {
+        long period = 20L * 60 * Math.max(1, intervalMinutes);
+        executor.repeat(DatabaseExecutor.Lane.BACKGROUND, this::compact, 20L * 60, period);
+    }
+
+    /**
+     * 진행 중인 실행을 다음 청크 전에 멈춥니다 (onDisable에서 DB 종료 전에 호출)
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * 보관 기간이 지난 행을 한 번 압축합니다 (비동기 스레드에서 호출)
+     */
+    public void compact() {
+        if (stopped || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try (Connection conn = database.getConnection()) {
+            if (!database.tryNamedLock(conn, LOCK_NAME, 0)) {
+                // Another server is compacting the shared table
+                return;
+            }
+            try {
+                long rows = compact(conn);
+                runs.incrementAndGet();
+                if (rows > 0) {
+                    logger.log(Level.INFO, "Compacted " + rows + " transaction rows older than " + retentionDays
+                            + " days into transactions_daily (" + (System.currentTimeMillis() - start) + "ms)");
+                }
+            } finally {
+                database.releaseNamedLock(conn, LOCK_NAME);
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Transaction compaction failed, will retry next run: " + e.getMessage(), e);
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    public long getRuns() {
+        return runs.get();
+    }
+
+    public long getCompacted() {
+        return compacted.get();
+    }
+
+    public long getChunks() {
+        return chunks.get();
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    private long compact(Connection conn) throws SQLException {
+        Timestamp cutoff;
+        try (PreparedStatement stmt = conn.prepareStatement(TODAY_SQL);
+                ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            cutoff = Timestamp.valueOf(rs.getDate(1).toLocalDate().minusDays(retentionDays).atStartOfDay());
+        }
+
+        // Bound the key range up front so the scan never walks into the recent rows
+        long maxId;
+        try (PreparedStatement stmt = conn.prepareStatement(MAX_ID_SQL)) {
+            stmt.setTimestamp(1, cutoff);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                maxId = rs.getLong(1);
+                if (rs.wasNull()) {
+                    return 0;
+                }
+            }
+        }
+
+        long total = 0;
+        long lastId = 0;
+        while (!stopped && lastId < maxId) {
+            long chunkEnd = chunkEnd(conn, lastId, maxId);
+            if (chunkEnd <= lastId) {
+                break;
+            }
+
+            total += compactChunk(conn, lastId, chunkEnd, cutoff);
+            lastId = chunkEnd;
+            chunks.incrementAndGet();
+
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+
+    private long chunkEnd(Connection conn, long afterId, long maxId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(CHUNK_END_SQL)) {
+            stmt.setLong(1, afterId);
+            stmt.setLong(2, maxId);
+            stmt.setInt(3, chunkSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1); // 0 (NULL) when the range is empty
+            }
+        }
+    }
+
+    /**
+     * (afterId, endId] 범위의 오래된 행을 집계하고 삭제합니다. 둘 다 되거나 둘 다 안 됩니다.
+     *
+     * @return 삭제한 원본 행 수
+     */
+    private int compactChunk(Connection conn, long afterId, long endId, Timestamp cutoff) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement stmt = conn.prepareStatement(ROLLUP_SQL)) {
+                stmt.setLong(1, afterId);
+                stmt.setLong(2, endId);
+                stmt.setTimestamp(3, cutoff);
+                stmt.executeUpdate();
+            }
+
+            int deleted;
+            try (PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+                stmt.setLong(1, afterId);
+                stmt.setLong(2, endId);
+                stmt.setTimestamp(3, cutoff);
+                deleted = stmt.executeUpdate();
+            }
+
+            conn.commit();
+            compacted.addAndGet(deleted);
+            return deleted;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
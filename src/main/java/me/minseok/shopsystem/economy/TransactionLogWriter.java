@@ -0,0 +1,269 @@
+package me.minseok.shopsystem.economy;
+
+import me.minseok.shopsystem.database.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * transactions 테이블 비동기 배치 기록기
+ * 여러 스레드가 제한된 큐에 넣고, 전용 스레드 하나가 N ms 또는 M건마다 배치 INSERT로 기록합니다.
+ */
+public class TransactionLogWriter {
+
+    // A retried batch that already committed must not duplicate rows
+    private static final String INSERT_SQL = "INSERT INTO transactions (txn_id, uuid, type, amount, description) "
+            + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE txn_id = txn_id";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long OVERFLOW_WARN_INTERVAL_MILLIS = 10_000;
+
+    private final DatabaseManager database;
+    private final EconomyJournal journal;
+    private final Logger logger;
+    private final BlockingQueue<Row> queue;
+    private final int maxBatchSize;
+    private final long flushIntervalMillis;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong journaled = new AtomicLong();
+    private final AtomicLong highWaterMark = new AtomicLong();
+    private final AtomicLong lastOverflowWarning = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * @param journal 재시도 후에도 기록하지 못한 행을 넘겨 나중에 반영하게 할 저널
+     */
+    public TransactionLogWriter(DatabaseManager database, EconomyJournal journal, Logger logger, int queueSize,
+            int maxBatchSize, long flushIntervalMillis) {
+        this.database = database;
+        this.journal = journal;
+        this.logger = logger;
+        this.queue = new ArrayBlockingQueue<>(Math.max(64, queueSize));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.flushIntervalMillis = Math.max(10, flushIntervalMillis);
+    }
+
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "ShopCore-TransactionLog");
+        worker.setDaemon(true);
+        worker.start();
+        logger.log(Level.INFO, "Transaction log writer started (batch: " + maxBatchSize + ", interval: "
+                + flushIntervalMillis + "ms)");
+    }
+
+    /**
+     * 거래 기록을 큐에 넣습니다. 큐가 가득 차면 저널로 넘기고, 저널도 받을 수 없으면 버리고 개수를 셉니다.
+     * 호출 스레드(대개 메인 스레드)에서는 DB에 접근하지 않습니다.
+     *
+     * @param txnId 거래 ID (transactions.txn_id)
+     */
+    public void submit(UUID uuid, String type, long amount, String description, UUID txnId) {
+        Row row = new Row(txnId, uuid, type, amount, description);
+        if (running && queue.offer(row)) {
+            enqueued.incrementAndGet();
+            highWaterMark.accumulateAndGet(queue.size(), Math::max);
+            return;
+        }
+
+        // The queue fills exactly when MySQL is slow, so never write inline on the caller's thread
+        overflowed.incrementAndGet();
+        if (journal.appendLog(uuid, type, amount, description, txnId)) {
+            journaled.incrementAndGet();
+            return;
+        }
+        failed.incrementAndGet();
+
+        long now = System.currentTimeMillis();
+        long last = lastOverflowWarning.get();
+        if (now - last >= OVERFLOW_WARN_INTERVAL_MILLIS && lastOverflowWarning.compareAndSet(last, now)) {
+            logger.log(Level.WARNING, "Transaction log queue is full and the journal is unavailable; dropped "
+                    + failed.get() + " rows so far");
+        }
+    }
+
+    /**
+     * 작업 스레드를 멈추고 큐에 남은 기록을 모두 기록합니다
+     */
+    public void close() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<Row> remaining = new ArrayList<>(queue.size());
+        queue.drainTo(remaining);
+        for (int i = 0; i < remaining.size(); i += maxBatchSize) {
+            writeWithRetry(remaining.subList(i, Math.min(remaining.size(), i + maxBatchSize)));
+        }
+        logger.log(Level.INFO, "Transaction log writer stopped (written: " + written.get() + ", failed: "
+                + failed.get() + ")");
+    }
+
+    private void run() {
+        List<Row> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                Row first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Keep collecting until the batch is full or the interval has passed
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Row next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // close() drains whatever is left
+            }
+
+            if (!batch.isEmpty()) {
+                writeWithRetry(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeWithRetry(List<Row> rows) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                write(rows);
+                written.addAndGet(rows.size());
+                batches.incrementAndGet();
+                return;
+            } catch (SQLException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    spill(rows, attempt, e);
+                    return;
+                }
+                try {
+                    Thread.sleep(100L * attempt);
+                } catch (InterruptedException ie) {
+                    // Keep retrying; shutdown still wants these rows written
+                }
+            }
+        }
+    }
+
+    /**
+     * 기록하지 못한 행을 저널로 넘깁니다. 저널도 받을 수 없는 행만 버립니다.
+     */
+    private void spill(List<Row> rows, int attempts, SQLException cause) {
+        int dropped = 0;
+        for (Row row : rows) {
+            if (journal.appendLog(row.uuid, row.type, row.amount, row.description, row.txnId)) {
+                journaled.incrementAndGet();
+            } else {
+                dropped++;
+            }
+        }
+
+        if (dropped > 0) {
+            failed.addAndGet(dropped);
+            logger.log(Level.WARNING, "Dropped " + dropped + " transaction rows after " + attempts
+                    + " attempts: " + cause.getMessage(), cause);
+        } else {
+            logger.log(Level.WARNING, "Journaled " + rows.size() + " transaction rows after " + attempts
+                    + " attempts: " + cause.getMessage());
+        }
+    }
+
+    private void write(List<Row> rows) throws SQLException {
+        try (Connection conn = database.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (Row row : rows) {
+                stmt.setString(1, row.txnId != null ? row.txnId.toString() : null);
+                stmt.setString(2, row.uuid.toString());
+                stmt.setString(3, row.type);
+                Money.bind(stmt, 4, row.amount);
+                stmt.setString(5, row.description);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public long getEnqueued() {
+        return enqueued.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getOverflowed() {
+        return overflowed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getJournaled() {
+        return journaled.get();
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    private static final class Row {
+        private final UUID txnId;
+        private final UUID uuid;
+        private final String type;
+        private final long amount;
+        private final String description;
+
+        private Row(UUID txnId, UUID uuid, String type, long amount, String description) {
+            this.txnId = txnId;
+            this.uuid = uuid;
+            this.type = type;
+            this.amount = amount;
+            this.description = description;
+        }
+    }
+}
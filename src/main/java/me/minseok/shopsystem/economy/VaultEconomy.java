@@ -1,6 +1,8 @@
 package me.minseok.shopsystem.economy;
 
+import me.minseok.shopsystem.audit.AuditLog;
 import me.minseok.shopsystem.database.DatabaseManager;
+import me.minseok.shopsystem.messaging.BalanceSyncPublisher;
 import net.milkbowl.vault.economy.Economy;
 import net.milkbowl.vault.economy.EconomyResponse;
 import org.bukkit.OfflinePlayer;
@@ -10,20 +12,77 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class VaultEconomy implements Economy {
 
+    // Cached and journaled changes remembered by transaction ID so a retry is not applied twice
+    private static final int RECENT_TXN_LIMIT = 8192;
+
+    // Lock stripes one bulk deposit round trip may hold, so the rest of the server keeps trading meanwhile
+    private static final int BULK_LOCK_STRIPES = 4;
+
     private final DatabaseManager database;
+    private final BalanceCache cache;
+    private final AccountLocks locks;
+    private final AccountIndex accounts;
+    private final BalanceSyncPublisher publisher;
+    private final EconomyExecutor executor;
+    private final EconomyLedger ledger;
+    private final TransactionLogWriter transactionLog;
+    private final EconomyJournal journal;
+    private final EconomyMetrics metrics;
+    private final AuditLog audit;
+    private final boolean writeBehind;
     private final Logger logger;
     private final String currencyName;
     private final String currencyPlural;
-
-    public VaultEconomy(DatabaseManager database, Logger logger) {
+    private final Map<UUID, EconomyResult> recentTxns = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<UUID, EconomyResult> eldest) {
+                    return size() > RECENT_TXN_LIMIT;
+                }
+            });
+
+    /**
+     * @param locks       계정별 변경 직렬화용 락 (같은 UUID의 출금/입금/송금은 한 번에 하나씩)
+     * @param accounts    이미 존재하는 계정 인덱스 (존재 확인 쿼리 생략용)
+     * @param publisher   DB에 확정된 잔액 변경을 다른 서버에 알리는 발행기
+     * @param executor    *Async 메서드가 사용하는 경제 전용 실행기
+     * @param journal     DB 장애 중 출금/입금을 먼저 기록해두고 나중에 반영하는 로컬 저널
+     * @param metrics     작업별 호출 수/지연 시간 통계
+     * @param audit       출금/입금/송금 결과를 남기는 감사 로그
+     * @param writeBehind true면 캐시된 플레이어의 변경을 메모리에서 처리하고 나중에 반영,
+     *                    false면 항상 원장을 통해 DB에 즉시 반영 (여러 서버가 같은 잔액을 동시에 변경할 때)
+     */
+    public VaultEconomy(DatabaseManager database, BalanceCache cache, AccountLocks locks, AccountIndex accounts,
+            BalanceSyncPublisher publisher, EconomyExecutor executor, TransactionLogWriter transactionLog,
+            EconomyJournal journal, EconomyMetrics metrics, AuditLog audit, boolean writeBehind, Logger logger) {
         this.database = database;
+        this.cache = cache;
+        this.locks = locks;
+        this.accounts = accounts;
+        this.publisher = publisher;
+        this.executor = executor;
+        this.ledger = new EconomyLedger(database);
+        this.transactionLog = transactionLog;
+        this.journal = journal;
+        this.metrics = metrics;
+        this.audit = audit;
+        this.writeBehind = writeBehind;
         this.logger = logger;
         this.currencyName = "원";
         this.currencyPlural = "원";
@@ -54,6 +113,13 @@ public class VaultEconomy implements Economy {
         return String.format("%,.2f%s", amount, currencyName);
     }
 
+    /**
+     * 최소 단위(0.01원) 금액을 표시용 문자열로 변환합니다
+     */
+    public String format(long amount) {
+        return Money.format(amount) + currencyName;
+    }
+
     @Override
     public String currencyNamePlural() {
         return currencyPlural;
@@ -80,13 +146,22 @@ public class VaultEconomy implements Economy {
             logger.log(Level.WARNING, "UUID is null in hasAccount");
             return false;
         }
-        
+
+        if (cache.get(uuid) != null || accounts.contains(uuid)) {
+            return true;
+        }
+
+        // Not indexed yet (e.g. created on another server): confirm with the DB once
         String sql = "SELECT 1 FROM player_balances WHERE uuid = ?";
         try (Connection conn = database.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, uuid.toString());
             try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
+                if (rs.next()) {
+                    accounts.add(uuid);
+                    return true;
+                }
+                return false;
             }
         } catch (SQLException e) {
             logger.log(Level.SEVERE, "Failed to check account: " + e.getMessage(), e);
@@ -109,13 +184,19 @@ public class VaultEconomy implements Economy {
             logger.log(Level.WARNING, "UUID is null in createPlayerAccount");
             return false;
         }
-        
-        String sql = "INSERT IGNORE INTO player_balances (uuid, balance) VALUES (?, 0.00)";
+
+        if (accounts.contains(uuid)) {
+            return true;
+        }
+
+        String sql = "INSERT INTO player_balances (uuid, balance) VALUES (?, 0.00) ON DUPLICATE KEY UPDATE uuid = uuid";
         try (Connection conn = database.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, uuid.toString());
-            stmt.executeUpdate();
-            logger.log(Level.INFO, "Player account created for uuid: " + uuid);
+            if (stmt.executeUpdate() == 1) {
+                audit.log(AuditLog.Category.ECONOMY, Level.INFO, "account_created", "uuid", uuid);
+            }
+            accounts.add(uuid);
             return true;
         } catch (SQLException e) {
             logger.log(Level.SEVERE, "Failed to create account: " + e.getMessage(), e);
@@ -125,7 +206,7 @@ public class VaultEconomy implements Economy {
 
     @Override
     public double getBalance(OfflinePlayer player) {
-        return getBalance(player.getUniqueId());
+        return Money.toMajor(balanceOf(player.getUniqueId()));
     }
 
     @Override
@@ -133,36 +214,105 @@ public class VaultEconomy implements Economy {
         return 0;
     }
 
-    private double getBalance(UUID uuid) {
+    /**
+     * 잔액을 최소 단위(0.01원)로 조회합니다
+     */
+    public long balanceOf(UUID uuid) {
+        long start = metrics.start();
+        long balance = loadBalance(uuid);
+        metrics.record(EconomyMetrics.Operation.BALANCE, EconomyResult.Status.SUCCESS, start);
+        return balance;
+    }
+
+    private long loadBalance(UUID uuid) {
         if (uuid == null) {
             logger.log(Level.WARNING, "UUID is null in getBalance");
             return 0;
         }
-        
-        if (!hasAccount(uuid)) {
-            createPlayerAccount(uuid);
+
+        BalanceCache.Entry cached = cache.get(uuid);
+        if (cached != null) {
+            return cached.getBalance();
+        }
+
+        Long stored;
+        try {
+            stored = readStoredBalance(uuid);
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Failed to get balance for uuid " + uuid + ": " + e.getMessage(), e);
+            return 0;
         }
+        if (stored != null) {
+            return stored;
+        }
+
+        // A missing row means a new account; only then is a second statement needed
+        createPlayerAccount(uuid);
+        return 0;
+    }
 
+    /**
+     * @return DB에 저장된 잔액, 계정이 없으면 null
+     */
+    private Long readStoredBalance(UUID uuid) throws SQLException {
         String sql = "SELECT balance FROM player_balances WHERE uuid = ?";
         try (Connection conn = database.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, uuid.toString());
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    double balance = rs.getDouble("balance");
-                    logger.log(Level.INFO, "Retrieved balance for uuid " + uuid + ": " + balance);
-                    return balance;
+                    accounts.add(uuid);
+                    return Money.read(rs, "balance");
                 }
             }
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to get balance for uuid " + uuid + ": " + e.getMessage(), e);
         }
-        return 0;
+        return null;
+    }
+
+    /**
+     * 잔액을 지정한 값으로 맞춥니다 (/eco set, reset)
+     * 계정 락을 잡은 채로 현재 잔액을 읽고 차액만큼 입금/출금하므로 그 사이의 다른 변경이 섞이지 않습니다.
+     * 메인 스레드에서 호출하지 마세요 (setBalanceAsync 사용).
+     */
+    public EconomyResult setBalance(UUID uuid, long amount) {
+        if (uuid == null || amount < 0) {
+            return EconomyResult.invalid("Invalid balance");
+        }
+
+        try (AccountLocks.Guard guard = locks.lock(uuid)) {
+            long current;
+            BalanceCache.Entry cached = cache.get(uuid);
+            if (cached != null) {
+                current = cached.getBalance();
+            } else {
+                try {
+                    // Changes still waiting in the journal are part of the balance being replaced
+                    Long stored = readStoredBalance(uuid);
+                    current = (stored != null ? stored : 0) + journal.pendingFor(uuid);
+                } catch (SQLException e) {
+                    logger.log(Level.SEVERE, "Failed to read balance to set for " + uuid + ": " + e.getMessage(), e);
+                    return EconomyResult.error(e.getMessage());
+                }
+            }
+
+            // The account lock is reentrant, so these run as part of the same serialized change
+            if (amount > current) {
+                return deposit(uuid, amount - current, "DEPOSIT");
+            }
+            if (amount < current) {
+                return withdraw(uuid, current - amount, "WITHDRAW");
+            }
+            return EconomyResult.success(0, current);
+        }
     }
 
     @Override
     public boolean has(OfflinePlayer player, double amount) {
-        return getBalance(player) >= amount;
+        try {
+            return balanceOf(player.getUniqueId()) >= Money.ofMajor(amount);
+        } catch (ArithmeticException e) {
+            return false;
+        }
     }
 
     @Override
@@ -172,7 +322,11 @@ public class VaultEconomy implements Economy {
 
     @Override
     public EconomyResponse withdrawPlayer(OfflinePlayer player, double amount) {
-        return withdrawPlayer(player.getUniqueId(), amount, "WITHDRAW");
+        try {
+            return withdraw(player.getUniqueId(), Money.ofMajor(amount), "WITHDRAW").toResponse();
+        } catch (ArithmeticException e) {
+            return new EconomyResponse(0, 0, EconomyResponse.ResponseType.FAILURE, "Invalid amount");
+        }
     }
 
     @Override
@@ -180,44 +334,89 @@ public class VaultEconomy implements Economy {
         return new EconomyResponse(0, 0, EconomyResponse.ResponseType.NOT_IMPLEMENTED, "Use UUID");
     }
 
-    private EconomyResponse withdrawPlayer(UUID uuid, double amount, String reason) {
+    /**
+     * 최소 단위 금액을 차감합니다 (블로킹, 플러그인 내부에서는 withdrawAsync 사용)
+     *
+     * @param type transactions.type 값 (WITHDRAW, PURCHASE 등)
+     */
+    public EconomyResult withdraw(UUID uuid, long amount, String type) {
+        return withdraw(uuid, amount, type, UUID.randomUUID());
+    }
+
+    /**
+     * 거래 ID를 지정해 차감합니다. 같은 ID로 다시 호출해도 한 번만 차감됩니다.
+     */
+    public EconomyResult withdraw(UUID uuid, long amount, String type, UUID txnId) {
+        long start = metrics.start();
+        EconomyResult result = applyWithdraw(uuid, amount, type, txnId);
+        metrics.record(EconomyMetrics.Operation.WITHDRAW, result.getStatus(), start);
+        auditChange("withdraw", uuid, amount, type, txnId, result);
+        return result;
+    }
+
+    private EconomyResult applyWithdraw(UUID uuid, long amount, String type, UUID txnId) {
         if (uuid == null) {
             logger.log(Level.WARNING, "UUID is null in withdrawPlayer");
-            return new EconomyResponse(0, 0, EconomyResponse.ResponseType.FAILURE, "Invalid UUID");
+            return EconomyResult.invalid("Invalid UUID");
         }
         
         if (amount < 0) {
-            logger.log(Level.WARNING, "Attempted to withdraw negative amount: " + amount + " for uuid: " + uuid);
-            return new EconomyResponse(0, 0, EconomyResponse.ResponseType.FAILURE, "Cannot withdraw negative");
+            logger.log(Level.WARNING, "Attempted to withdraw negative amount: " + Money.format(amount) + " for uuid: " + uuid);
+            return EconomyResult.invalid("Cannot withdraw negative");
         }
 
-        double balance = getBalance(uuid);
-        if (balance < amount) {
-            logger.log(Level.INFO, "Withdrawal failed - insufficient funds. UUID: " + uuid + ", Required: " + amount + ", Balance: " + balance);
-            return new EconomyResponse(0, balance, EconomyResponse.ResponseType.FAILURE, "Insufficient funds");
-        }
+        try (AccountLocks.Guard guard = locks.lock(uuid)) {
+            EconomyResult previous = txnId != null ? recentTxns.get(txnId) : null;
+            if (previous != null) {
+                return previous;
+            }
 
-        String sql = "UPDATE player_balances SET balance = balance - ? WHERE uuid = ?";
-        try (Connection conn = database.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setDouble(1, amount);
-            stmt.setString(2, uuid.toString());
-            stmt.executeUpdate();
+            BalanceCache.Entry cached = cache.get(uuid);
+            if (journal.hasBacklog()) {
+                // Stay behind the changes already waiting in the journal
+                EconomyResult journaled = journaled(uuid, cached, -amount, type, txnId);
+                if (journaled != null) {
+                    return remember(txnId, journaled);
+                }
+                if (journal.isDegraded()) {
+                    return EconomyResult.error("Database unavailable");
+                }
+            }
 
-            logTransaction(uuid, reason, amount, null);
+            if (cached != null && writeBehind) {
+                long newBalance = cache.withdraw(cached, amount);
+                if (newBalance < 0) {
+                    return EconomyResult.insufficientFunds(cached.getBalance());
+                }
+                logTransaction(uuid, type, amount, null, txnId);
+                return remember(txnId, EconomyResult.success(amount, newBalance));
+            }
 
-            double newBalance = balance - amount;
-            logger.log(Level.INFO, "Withdrawal successful. UUID: " + uuid + ", Amount: " + amount + ", Reason: " + reason + ", New Balance: " + newBalance);
-            return new EconomyResponse(amount, newBalance, EconomyResponse.ResponseType.SUCCESS, null);
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to withdraw: " + e.getMessage(), e);
-            return new EconomyResponse(0, balance, EconomyResponse.ResponseType.FAILURE, e.getMessage());
+            try {
+                EconomyLedger.Result result = ledger.withdraw(uuid, amount, type, null, txnId);
+                if (cached != null) {
+                    cache.refresh(cached, result.getBalance(), result.getVersion());
+                }
+                if (!result.isSuccess()) {
+                    return EconomyResult.insufficientFunds(result.getBalance());
+                }
+                publisher.publish(uuid, result.getBalance(), result.getVersion());
+                return EconomyResult.success(amount, result.getBalance());
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, "Failed to withdraw: " + e.getMessage(), e);
+                EconomyResult journaled = journaled(uuid, cached, -amount, type, txnId);
+                return journaled != null ? remember(txnId, journaled) : EconomyResult.error(e.getMessage());
+            }
         }
     }
 
     @Override
     public EconomyResponse depositPlayer(OfflinePlayer player, double amount) {
-        return depositPlayer(player.getUniqueId(), amount, "DEPOSIT");
+        try {
+            return deposit(player.getUniqueId(), Money.ofMajor(amount), "DEPOSIT").toResponse();
+        } catch (ArithmeticException e) {
+            return new EconomyResponse(0, 0, EconomyResponse.ResponseType.FAILURE, "Invalid amount");
+        }
     }
 
     @Override
@@ -225,57 +424,390 @@ public class VaultEconomy implements Economy {
         return new EconomyResponse(0, 0, EconomyResponse.ResponseType.NOT_IMPLEMENTED, "Use UUID");
     }
 
-    private EconomyResponse depositPlayer(UUID uuid, double amount, String reason) {
+    /**
+     * 최소 단위 금액을 입금합니다 (블로킹, 플러그인 내부에서는 depositAsync 사용)
+     *
+     * @param type transactions.type 값 (DEPOSIT, SALE 등)
+     */
+    public EconomyResult deposit(UUID uuid, long amount, String type) {
+        return deposit(uuid, amount, type, UUID.randomUUID());
+    }
+
+    /**
+     * 거래 ID를 지정해 입금합니다. 같은 ID로 다시 호출해도 한 번만 입금됩니다.
+     */
+    public EconomyResult deposit(UUID uuid, long amount, String type, UUID txnId) {
+        long start = metrics.start();
+        EconomyResult result = applyDeposit(uuid, amount, type, txnId);
+        metrics.record(EconomyMetrics.Operation.DEPOSIT, result.getStatus(), start);
+        auditChange("deposit", uuid, amount, type, txnId, result);
+        return result;
+    }
+
+    private EconomyResult applyDeposit(UUID uuid, long amount, String type, UUID txnId) {
         if (uuid == null) {
             logger.log(Level.WARNING, "UUID is null in depositPlayer");
-            return new EconomyResponse(0, 0, EconomyResponse.ResponseType.FAILURE, "Invalid UUID");
+            return EconomyResult.invalid("Invalid UUID");
         }
         
         if (amount < 0) {
-            logger.log(Level.WARNING, "Attempted to deposit negative amount: " + amount + " for uuid: " + uuid);
-            return new EconomyResponse(0, 0, EconomyResponse.ResponseType.FAILURE, "Cannot deposit negative");
+            logger.log(Level.WARNING, "Attempted to deposit negative amount: " + Money.format(amount) + " for uuid: " + uuid);
+            return EconomyResult.invalid("Cannot deposit negative");
+        }
+
+        try (AccountLocks.Guard guard = locks.lock(uuid)) {
+            EconomyResult previous = txnId != null ? recentTxns.get(txnId) : null;
+            if (previous != null) {
+                return previous;
+            }
+
+            BalanceCache.Entry cached = cache.get(uuid);
+            if (journal.hasBacklog()) {
+                EconomyResult journaled = journaled(uuid, cached, amount, type, txnId);
+                if (journaled != null) {
+                    return remember(txnId, journaled);
+                }
+            }
+
+            if (cached != null && writeBehind) {
+                long newBalance = cache.deposit(cached, amount);
+                logTransaction(uuid, type, amount, null, txnId);
+                return remember(txnId, EconomyResult.success(amount, newBalance));
+            }
+
+            try {
+                EconomyLedger.Result result = ledger.deposit(uuid, amount, type, null, txnId);
+                accounts.add(uuid);
+                if (cached != null) {
+                    cache.refresh(cached, result.getBalance(), result.getVersion());
+                }
+                publisher.publish(uuid, result.getBalance(), result.getVersion());
+                return EconomyResult.success(amount, result.getBalance());
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, "Failed to deposit: " + e.getMessage(), e);
+                EconomyResult journaled = journaled(uuid, cached, amount, type, txnId);
+                return journaled != null ? remember(txnId, journaled) : EconomyResult.error(e.getMessage());
+            }
         }
+    }
 
-        if (!hasAccount(uuid)) {
-            createPlayerAccount(uuid);
+    /**
+     * 여러 플레이어에게 같은 금액을 한꺼번에 입금합니다 (이벤트/투표 보상/정기 지급)
+     * 계정을 락 스트라이프 몇 개 단위로 묶어 묶음마다 DB 왕복 몇 번으로 처리합니다. DB 장애나 저널 대기 중에는 한 명씩 입금으로 처리합니다.
+     * 메인 스레드에서 호출하지 마세요 (depositAllAsync 사용).
+     *
+     * @return 플레이어별 결과 (입력 순서 유지, 중복 UUID는 한 번만 입금)
+     */
+    public Map<UUID, EconomyResult> depositAll(Collection<UUID> uuids, long amount, String type) {
+        long start = metrics.start();
+        Map<UUID, EconomyResult> results = new LinkedHashMap<>();
+        if (amount <= 0) {
+            for (UUID uuid : uuids) {
+                results.put(uuid, EconomyResult.invalid("Amount must be positive"));
+            }
+            metrics.record(EconomyMetrics.Operation.BULK_DEPOSIT, EconomyResult.Status.INVALID_REQUEST, start);
+            return results;
         }
 
-        String sql = "UPDATE player_balances SET balance = balance + ? WHERE uuid = ?";
-        try (Connection conn = database.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setDouble(1, amount);
-            stmt.setString(2, uuid.toString());
-            stmt.executeUpdate();
+        List<UUID> targets = new ArrayList<>(new LinkedHashSet<>(uuids));
+        targets.remove(null);
+        UUID batchId = UUID.randomUUID();
+
+        // Balance after the bulk deposit, per account it reached
+        Map<UUID, Long> applied = new HashMap<>();
+        boolean bulk = !journal.hasBacklog();
+        for (List<UUID> chunk : bulkBatches(targets)) {
+            if (bulk) {
+                // Single changes and transfers on these few stripes wait instead of interleaving; others go on
+                try (AccountLocks.Guard guard = locks.lockAll(chunk)) {
+                    Map<UUID, EconomyLedger.Result> chunkApplied = new HashMap<>();
+                    try {
+                        ledger.depositAll(chunk, amount, type, null, batchId, chunkApplied);
+                    } catch (SQLException e) {
+                        bulk = false;
+                        logger.log(Level.WARNING, "Bulk deposit stopped after " + applied.size() + "/"
+                                + targets.size() + " accounts, paying the rest one by one: " + e.getMessage(), e);
+                    }
+                    for (Map.Entry<UUID, EconomyLedger.Result> entry : chunkApplied.entrySet()) {
+                        UUID uuid = entry.getKey();
+                        EconomyLedger.Result row = entry.getValue();
+                        accounts.add(uuid);
+                        BalanceCache.Entry cached = cache.get(uuid);
+                        if (cached != null) {
+                            cache.refresh(cached, row.getBalance(), row.getVersion());
+                        }
+                        publisher.publish(uuid, row.getBalance(), row.getVersion());
+                        applied.put(uuid, cached != null ? cached.getBalance() : row.getBalance());
+                    }
+                }
+            }
+        }
+
+        EconomyResult.Status status = EconomyResult.Status.SUCCESS;
+        for (UUID uuid : targets) {
+            Long balance = applied.get(uuid);
+            if (balance != null) {
+                results.put(uuid, EconomyResult.success(amount, balance));
+                continue;
+            }
+
+            // Outside the chunk lock, each under its own account lock. Same per-account ID as the bulk path,
+            // so an account paid by a lost commit is not paid twice
+            EconomyResult single = deposit(uuid, amount, type, EconomyLedger.bulkTxnId(batchId, uuid));
+            if (!single.isSuccess()) {
+                status = single.getStatus();
+            }
+            results.put(uuid, single);
+        }
+
+        metrics.record(EconomyMetrics.Operation.BULK_DEPOSIT, status, start);
+        audit.log(AuditLog.Category.ECONOMY, Level.INFO, "bulk_deposit", "batch", batchId, "accounts", targets.size(),
+                "bulk", applied.size(), "amount", amount, "type", type, "status", status);
+        return results;
+    }
+
+    /**
+     * 일괄 입금 대상을 락 스트라이프별로 묶어, 한 번에 BULK_LOCK_STRIPES개 스트라이프만 잡도록 나눕니다
+     * 한 묶음이 BULK_CHUNK_SIZE를 넘지 않게 하되, 한 스트라이프의 계정은 나누지 않습니다.
+     */
+    private List<List<UUID>> bulkBatches(List<UUID> targets) {
+        Map<Integer, List<UUID>> byStripe = new TreeMap<>();
+        for (UUID uuid : targets) {
+            byStripe.computeIfAbsent(locks.stripeOf(uuid), stripe -> new ArrayList<>()).add(uuid);
+        }
+
+        List<List<UUID>> batches = new ArrayList<>();
+        List<UUID> current = new ArrayList<>();
+        int stripes = 0;
+        for (List<UUID> group : byStripe.values()) {
+            if (!current.isEmpty() && (stripes == BULK_LOCK_STRIPES
+                    || current.size() + group.size() > EconomyLedger.BULK_CHUNK_SIZE)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                stripes = 0;
+            }
+            current.addAll(group);
+            stripes++;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    /**
+     * 출금/입금 결과를 감사 로그에 남깁니다 (잔액 부족은 FINE, 오류는 WARNING)
+     */
+    private void auditChange(String event, UUID uuid, long amount, String type, UUID txnId, EconomyResult result) {
+        Level level = switch (result.getStatus()) {
+            case SUCCESS -> Level.INFO;
+            case INSUFFICIENT_FUNDS -> Level.FINE;
+            case INVALID_REQUEST, ERROR -> Level.WARNING;
+        };
+        if (!audit.isEnabled(AuditLog.Category.ECONOMY, level)) {
+            return;
+        }
+        audit.log(AuditLog.Category.ECONOMY, level, event, "uuid", uuid, "amount", amount, "type", type,
+                "txn", txnId, "status", result.getStatus(), "balance", result.getBalance());
+    }
+
+    /**
+     * 캐시/저널로 처리한 성공 결과를 거래 ID로 기억합니다 (원장 경로는 txn_id 고유 키가 중복을 막음)
+     * 같은 ID로 다시 호출되면 변경을 다시 적용하지 않고 이 결과를 돌려줍니다.
+     * 이 서버에서 최근 RECENT_TXN_LIMIT건까지만 기억하므로, 그보다 오래되었거나 재시작 전의 재시도는 막지 못합니다.
+     */
+    private EconomyResult remember(UUID txnId, EconomyResult result) {
+        if (txnId != null && result.isSuccess()) {
+            recentTxns.put(txnId, result);
+        }
+        return result;
+    }
+
+    /**
+     * 변경을 로컬 저널에 기록하고 성공으로 처리합니다 (DB 반영은 저널이 나중에 처리)
+     * 잔액을 알 수 없는 캐시되지 않은 플레이어의 출금은 처리하지 않습니다.
+     * 호출 전에 계정 락을 잡고 있어야 합니다.
+     *
+     * @return 처리 결과, 저널에 기록할 수 없으면 null
+     */
+    private EconomyResult journaled(UUID uuid, BalanceCache.Entry cached, long delta, String type, UUID txnId) {
+        if (!journal.isEnabled() || (delta < 0 && cached == null)) {
+            return null;
+        }
 
-            logTransaction(uuid, reason, amount, null);
+        if (delta < 0) {
+            // Check and reserve the funds first so nothing is journaled for a failed withdrawal
+            long newBalance = cache.applyJournaled(cached, delta);
+            if (newBalance < 0) {
+                return EconomyResult.insufficientFunds(cached.getBalance());
+            }
+            if (!journal.appendAdjust(uuid, delta, type, null, txnId)) {
+                cache.applyJournaled(cached, -delta);
+                return null;
+            }
+            return EconomyResult.success(-delta, newBalance);
+        }
 
-            double newBalance = getBalance(uuid);
-            logger.log(Level.INFO, "Deposit successful. UUID: " + uuid + ", Amount: " + amount + ", Reason: " + reason + ", New Balance: " + newBalance);
-            return new EconomyResponse(amount, newBalance, EconomyResponse.ResponseType.SUCCESS, null);
+        if (!journal.appendAdjust(uuid, delta, type, null, txnId)) {
+            return null;
+        }
+        // Without a cached entry the new balance is unknown until the journal reaches MySQL
+        long newBalance = cached != null ? cache.applyJournaled(cached, delta) : 0;
+        return EconomyResult.success(delta, newBalance);
+    }
+
+    /**
+     * 두 플레이어 사이에서 금액을 원자적으로 이동합니다
+     * DB 트랜잭션 하나로 처리되므로 메인 스레드에서 호출하지 마세요.
+     */
+    public EconomyLedger.TransferResult transfer(UUID from, UUID to, long amount) throws SQLException {
+        return transfer(from, to, amount, UUID.randomUUID());
+    }
+
+    /**
+     * 거래 ID를 지정해 송금합니다. 같은 ID로 다시 호출해도 한 번만 송금됩니다.
+     */
+    public EconomyLedger.TransferResult transfer(UUID from, UUID to, long amount, UUID txnId) throws SQLException {
+        long start = metrics.start();
+        try {
+            EconomyLedger.TransferResult result = applyTransfer(from, to, amount, txnId);
+            metrics.record(EconomyMetrics.Operation.TRANSFER,
+                    result.isSuccess() ? EconomyResult.Status.SUCCESS : EconomyResult.Status.INSUFFICIENT_FUNDS, start);
+            audit.log(AuditLog.Category.ECONOMY, result.isSuccess() ? Level.INFO : Level.FINE, "transfer",
+                    "from", from, "to", to, "amount", amount, "txn", txnId, "ok", result.isSuccess(),
+                    "from_balance", result.getFromBalance(), "to_balance", result.getToBalance());
+            return result;
         } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Failed to deposit: " + e.getMessage(), e);
-            return new EconomyResponse(0, 0, EconomyResponse.ResponseType.FAILURE, e.getMessage());
+            metrics.record(EconomyMetrics.Operation.TRANSFER, EconomyResult.Status.ERROR, start);
+            audit.log(AuditLog.Category.ECONOMY, Level.WARNING, "transfer", "from", from, "to", to, "amount", amount,
+                    "txn", txnId, "error", e.getMessage());
+            throw e;
+        } catch (IllegalArgumentException e) {
+            metrics.record(EconomyMetrics.Operation.TRANSFER, EconomyResult.Status.INVALID_REQUEST, start);
+            throw e;
         }
     }
 
-    private void logTransaction(UUID uuid, String type, double amount, String description) {
+    private EconomyLedger.TransferResult applyTransfer(UUID from, UUID to, long amount, UUID txnId)
+            throws SQLException {
+        if (from == null || to == null || from.equals(to)) {
+            throw new IllegalArgumentException("Invalid transfer accounts");
+        }
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive");
+        }
+
+        try (AccountLocks.Guard guard = locks.lockBoth(from, to)) {
+            // The ledger checks funds against the stored row, which does not yet include journaled changes; the
+            // journal replays them later without a funds check, so the sender must have none waiting
+            if (journal.pendingFor(from) != 0) {
+                throw new SQLException("Balance changes for " + from + " are still waiting in the journal");
+            }
+
+            BalanceCache.Entry fromCached = cache.get(from);
+            BalanceCache.Entry toCached = cache.get(to);
+
+            // Pending write-behind deltas must reach the rows before they are locked and checked
+            if ((fromCached != null && !cache.flush(fromCached)) || (toCached != null && !cache.flush(toCached))) {
+                throw new SQLException("Could not flush cached balances before transfer");
+            }
+
+            EconomyLedger.TransferResult result = ledger.transfer(from, to, amount, "to " + to, txnId);
+            accounts.add(to);
+            if (result.isSuccess()) {
+                // refresh() keeps the journaled share of the receiver's cached balance on top of the stored row
+                EconomyLedger.Result fromRow = result.getFrom();
+                EconomyLedger.Result toRow = result.getTo();
+                if (fromCached != null) {
+                    cache.refresh(fromCached, fromRow.getBalance(), fromRow.getVersion());
+                }
+                if (toCached != null) {
+                    cache.refresh(toCached, toRow.getBalance(), toRow.getVersion());
+                }
+                publisher.publish(from, fromRow.getBalance(), fromRow.getVersion());
+                publisher.publish(to, toRow.getBalance(), toRow.getVersion());
+            }
+            return result;
+        }
+    }
+
+    // Async API: same operations on the economy executor, continue with onMain()
+
+    public CompletableFuture<Long> balanceAsync(UUID uuid) {
+        return executor.supply(() -> balanceOf(uuid));
+    }
+
+    // The transaction ID is fixed at submission, so the work itself is safe to retry: the ledger dedupes it through
+    // transactions.txn_id, cached and journaled changes through the recent transaction IDs kept in memory
+
+    public CompletableFuture<EconomyResult> withdrawAsync(UUID uuid, long amount, String type) {
+        UUID txnId = UUID.randomUUID();
+        return executor.supply(() -> withdraw(uuid, amount, type, txnId));
+    }
+
+    public CompletableFuture<EconomyResult> depositAsync(UUID uuid, long amount, String type) {
+        UUID txnId = UUID.randomUUID();
+        return executor.supply(() -> deposit(uuid, amount, type, txnId));
+    }
+
+    public CompletableFuture<EconomyResult> setBalanceAsync(UUID uuid, long amount) {
+        return executor.supply(() -> setBalance(uuid, amount));
+    }
+
+    public CompletableFuture<EconomyLedger.TransferResult> transferAsync(UUID from, UUID to, long amount) {
+        UUID txnId = UUID.randomUUID();
+        return executor.supply(() -> transfer(from, to, amount, txnId));
+    }
+
+    public CompletableFuture<Map<UUID, EconomyResult>> depositAllAsync(Collection<UUID> uuids, long amount,
+            String type) {
+        List<UUID> targets = new ArrayList<>(uuids);
+        return executor.supply(() -> depositAll(targets, amount, type));
+    }
+
+    /**
+     * 비동기 결과를 메인 스레드에서 처리합니다 (실패는 로그로 남김)
+     */
+    public <T> void onMain(CompletableFuture<T> future, Consumer<? super T> action) {
+        executor.onMain(future, action);
+    }
+
+    /**
+     * 비동기 결과를 메인 스레드에서 처리하고, 실패 시 onError를 메인 스레드에서 호출합니다
+     */
+    public <T> void onMain(CompletableFuture<T> future, Consumer<? super T> action, Consumer<Throwable> onError) {
+        executor.onMain(future, action, onError);
+    }
+
+    public EconomyExecutor getExecutor() {
+        return executor;
+    }
+
+    private void logTransaction(UUID uuid, String type, long amount, String description, UUID txnId) {
         if (uuid == null || type == null) {
             logger.log(Level.WARNING, "UUID or type is null in logTransaction");
             return;
         }
-        
-        String sql = "INSERT INTO transactions (uuid, type, amount, description) VALUES (?, ?, ?, ?)";
-        try (Connection conn = database.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, uuid.toString());
-            stmt.setString(2, type);
-            stmt.setDouble(3, amount);
-            stmt.setString(4, description);
-            stmt.executeUpdate();
-            logger.log(Level.INFO, "Transaction logged. UUID: " + uuid + ", Type: " + type + ", Amount: " + amount);
-        } catch (SQLException e) {
-            logger.log(Level.WARNING, "Failed to log transaction: " + e.getMessage(), e);
-        }
+
+        long start = metrics.start();
+        transactionLog.submit(uuid, type, amount, description, txnId);
+        metrics.record(EconomyMetrics.Operation.TRANSACTION_LOG, EconomyResult.Status.SUCCESS, start);
+    }
+
+    public AccountLocks getAccountLocks() {
+        return locks;
+    }
+
+    public TransactionLogWriter getTransactionLog() {
+        return transactionLog;
+    }
+
+    public EconomyJournal getJournal() {
+        return journal;
+    }
+
+    public EconomyMetrics getMetrics() {
+        return metrics;
     }
 
     // Unimplemented Vault methods (world-specific, bank support, etc.)
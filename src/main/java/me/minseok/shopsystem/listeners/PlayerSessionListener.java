@@ -0,0 +1,93 @@
+package me.minseok.shopsystem.listeners;
+
+import me.minseok.shopsystem.database.DatabaseExecutor;
+import me.minseok.shopsystem.session.PlayerDirectory;
+import me.minseok.shopsystem.session.PlayerSessionManager;
+import me.minseok.shopsystem.shop.ShopManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class PlayerSessionListener implements Listener {
+
+    // Longer than any sane login; past this the join handler loads the session instead
+    private static final long PRELOGIN_TIMEOUT_SECONDS = 10;
+
+    private final DatabaseExecutor executor;
+    private final Logger logger;
+    private final PlayerSessionManager sessions;
+    private final PlayerDirectory directory;
+    private final ShopManager shopManager;
+
+    public PlayerSessionListener(DatabaseExecutor executor, Logger logger, PlayerSessionManager sessions,
+            PlayerDirectory directory, ShopManager shopManager) {
+        this.executor = executor;
+        this.logger = logger;
+        this.sessions = sessions;
+        this.directory = directory;
+        this.shopManager = shopManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        // Already off the main thread: wait for the load so everything is ready before the player enters the world
+        UUID uuid = event.getUniqueId();
+        try {
+            executor.supply(DatabaseExecutor.Lane.PLAYER, () -> sessions.load(uuid))
+                    .get(PRELOGIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            logger.log(Level.WARNING, "Could not prefetch session for " + event.getName() + ", loading on join: "
+                    + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        directory.record(uuid, event.getName());
+
+        // Refresh prices in case this server was empty and missed plugin messages
+        executor.execute(DatabaseExecutor.Lane.BACKGROUND, shopManager::refreshPricesCoalesced);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            // Kicked after the prefetch (server full, whitelist...), drop the session
+            UUID uuid = event.getPlayer().getUniqueId();
+            long token = sessions.scheduleUnload(uuid);
+            executor.execute(DatabaseExecutor.Lane.PLAYER, () -> sessions.unload(uuid, token));
+        }
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        // A duplicate login kicks the old connection after the prefetch, so its quit may have scheduled an unload
+        sessions.cancelUnload(uuid);
+        if (sessions.get(uuid) == null) {
+            // Prefetch failed or was skipped; fall back to loading now
+            executor.execute(DatabaseExecutor.Lane.PLAYER, () -> sessions.load(uuid));
+        }
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        // Flush this player's pending balance changes before dropping the session, unless they rejoin first
+        UUID uuid = event.getPlayer().getUniqueId();
+        long token = sessions.scheduleUnload(uuid);
+        executor.execute(DatabaseExecutor.Lane.PLAYER, () -> sessions.unload(uuid, token));
+    }
+}
@@ -3,9 +3,14 @@ package me.minseok.shopsystem.messaging;
 import com.google.common.io.ByteArrayDataInput;
 import com.google.common.io.ByteStreams;
 import me.minseok.shopsystem.ShopCore;
+import me.minseok.shopsystem.audit.AuditLog;
+import me.minseok.shopsystem.economy.Money;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.messaging.PluginMessageListener;
 
+import java.util.UUID;
+import java.util.logging.Level;
+
 public class BackendMessageListener implements PluginMessageListener {
 
     private final ShopCore plugin;
@@ -19,10 +24,10 @@ public class BackendMessageListener implements PluginMessageListener {
         if (!channel.equals("shopsystem:sync")) {
             return;
         }
-        plugin.getLogger().info("DEBUG: Received plugin message on channel " + channel + " from " + player.getName());
-
         ByteArrayDataInput in = ByteStreams.newDataInput(message);
         String subChannel = in.readUTF();
+        plugin.getAuditLog().log(AuditLog.Category.MESSAGING, Level.FINE, "message_received", "type", subChannel,
+                "via", player.getName(), "bytes", message.length);
 
         if (subChannel.equals("PRICE_UPDATE")) {
             String item = in.readUTF();
@@ -37,13 +42,28 @@ public class BackendMessageListener implements PluginMessageListener {
                     // Ignore update from self
                     return;
                 }
-                plugin.getLogger().info("Received price update for " + item + " from " + sourceServer);
+                plugin.getAuditLog().log(AuditLog.Category.MESSAGING, Level.FINE, "price_update_received",
+                        "item", item, "from", sourceServer);
             } catch (Exception e) {
                 // Legacy message or error reading source server
-                plugin.getLogger().info("Received price update for " + item + " (unknown source)");
+                plugin.getAuditLog().log(AuditLog.Category.MESSAGING, Level.FINE, "price_update_received",
+                        "item", item, "from", "unknown");
+            }
+
+            plugin.getShopManager().updateItemPrice(item, Money.ofMajor(buyPrice), Money.ofMajor(sellPrice));
+
+        } else if (subChannel.equals(BalanceSyncPublisher.SUBCHANNEL)) {
+            UUID uuid = UUID.fromString(in.readUTF());
+            long balance = in.readLong();
+            long version = in.readLong();
+            String sourceServer = in.readUTF();
+            if (sourceServer.equals(plugin.getConfig().getString("server-name", "unknown"))) {
+                return;
             }
 
-            plugin.getShopManager().updateItemPrice(item, buyPrice, sellPrice);
+            // Only players cached here need updating; stale (out-of-order) versions are dropped
+            plugin.getBalanceCache().applyRemote(uuid, balance, version);
+            plugin.getLeaderboard().update(uuid, balance, version);
 
         } else if (subChannel.equals("SYNC_REQUEST")) {
             plugin.getLogger().info("Received sync request from Velocity");
@@ -0,0 +1,126 @@
+package me.minseok.shopsystem.messaging;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 확정된 잔액 변경을 BALANCE_CHANGED 메시지로 다른 서버에 알립니다
+ * 어느 스레드에서든 publish()할 수 있고, 메인 스레드에서 매 틱 모아서 전송합니다.
+ * 같은 플레이어의 변경이 한 틱에 여러 번 생기면 가장 높은 버전 하나만 보냅니다.
+ */
+public class BalanceSyncPublisher {
+
+    public static final String CHANNEL = "shopsystem:sync";
+    public static final String SUBCHANNEL = "BALANCE_CHANGED";
+
+    /**
+     * 확정된 잔액이 발행될 때마다 호출됩니다 (publish를 호출한 스레드에서 호출)
+     */
+    public interface Listener {
+        void published(UUID uuid, long balance, long version);
+    }
+
+    private final Plugin plugin;
+    private final String serverName;
+    private final Map<UUID, Update> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Listener listener;
+
+    public BalanceSyncPublisher(Plugin plugin, String serverName) {
+        this.plugin = plugin;
+        this.serverName = serverName;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void start() {
+        plugin.getServer().getScheduler().runTaskTimer(plugin, this::drain, 1L, 1L);
+    }
+
+    /**
+     * DB에 커밋된 잔액과 버전을 전송 대기열에 넣습니다
+     */
+    public void publish(UUID uuid, long balance, long version) {
+        published.incrementAndGet();
+        pending.merge(uuid, new Update(balance, version), (a, b) -> a.version >= b.version ? a : b);
+        Listener current = listener;
+        if (current != null) {
+            current.published(uuid, balance, version);
+        }
+    }
+
+    /**
+     * 대기 중인 변경을 전송합니다. 메인 스레드에서 호출하세요.
+     */
+    public void drain() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Plugin messages ride on a player connection; with nobody online the other servers
+        // will read fresh balances from MySQL when players arrive anyway
+        Iterator<? extends Player> online = plugin.getServer().getOnlinePlayers().iterator();
+        if (!online.hasNext()) {
+            dropped.addAndGet(pending.size());
+            pending.clear();
+            return;
+        }
+        Player carrier = online.next();
+
+        for (UUID uuid : pending.keySet()) {
+            // remove() hands back the newest value even if publish() merged one in meanwhile
+            Update update = pending.remove(uuid);
+            if (update == null) {
+                continue;
+            }
+
+            ByteArrayDataOutput out = ByteStreams.newDataOutput();
+            out.writeUTF(SUBCHANNEL);
+            out.writeUTF(uuid.toString());
+            out.writeLong(update.balance);
+            out.writeLong(update.version);
+            out.writeUTF(serverName);
+            carrier.sendPluginMessage(plugin, CHANNEL, out.toByteArray());
+            sent.incrementAndGet();
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private static final class Update {
+        private final long balance;
+        private final long version;
+
+        private Update(long balance, long version) {
+            this.balance = balance;
+            this.version = version;
+        }
+    }
+}
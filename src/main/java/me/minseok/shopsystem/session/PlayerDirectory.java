@@ -0,0 +1,288 @@
+package me.minseok.shopsystem.session;
+
+import me.minseok.shopsystem.database.DatabaseExecutor;
+import me.minseok.shopsystem.database.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * UUID ↔ 플레이어 이름 디렉터리 (player_names 테이블 + 크기 제한 LRU 캐시)
+ * 접속한 플레이어의 이름은 모아서 주기적으로 한 번에 upsert하고, 소문자 이름 TreeMap으로 접두사 탭 완성을 처리합니다.
+ * getName/getUuid/complete는 캐시만 보므로 메인 스레드에서 호출해도 되고, lookup* 메서드는 DB를 조회합니다.
+ */
+public class PlayerDirectory {
+
+    private static final String UPSERT_SQL = "INSERT INTO player_names (uuid, name, name_lower) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE name = VALUES(name), name_lower = VALUES(name_lower), "
+            + "last_seen = CURRENT_TIMESTAMP";
+    private static final String RECENT_SQL = "SELECT uuid, name FROM player_names ORDER BY last_seen DESC LIMIT ?";
+    private static final String BY_NAME_SQL = "SELECT uuid, name FROM player_names WHERE name_lower = ? "
+            + "ORDER BY last_seen DESC LIMIT 1";
+
+    private final DatabaseManager database;
+    private final Logger logger;
+    private final int maxEntries;
+
+    // Both guarded by "this"; the LRU map is access-ordered so even reads mutate it
+    private final LinkedHashMap<UUID, String> names;
+    private final TreeMap<String, Named> byName = new TreeMap<>();
+
+    private final Map<UUID, String> pending = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxEntries 메모리에 보관할 최대 플레이어 수 (넘으면 가장 오래 안 쓴 항목부터 제거)
+     */
+    public PlayerDirectory(DatabaseManager database, Logger logger, int maxEntries) {
+        this.database = database;
+        this.logger = logger;
+        this.maxEntries = Math.max(100, maxEntries);
+        this.names = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 최근 접속한 플레이어 이름으로 캐시를 채우고 주기적인 upsert를 시작합니다
+     *
+     * @param flushIntervalSeconds 접속 기록을 모아서 저장하는 주기
+     */
+    public void start(DatabaseExecutor executor, int flushIntervalSeconds) {
+        executor.execute(DatabaseExecutor.Lane.BACKGROUND, this::load);
+        long period = 20L * Math.max(1, flushIntervalSeconds);
+        executor.repeat(DatabaseExecutor.Lane.BACKGROUND, this::flush, period, period);
+    }
+
+    /**
+     * 접속한 플레이어의 이름을 기록합니다 (캐시는 즉시, DB는 다음 flush에서)
+     */
+    public void record(UUID uuid, String name) {
+        cache(uuid, name);
+        pending.put(uuid, name);
+    }
+
+    /**
+     * @return 캐시에 있는 이름, 없으면 null
+     */
+    public synchronized String getName(UUID uuid) {
+        return names.get(uuid);
+    }
+
+    /**
+     * @return 캐시에 있는 플레이어 UUID (대소문자 무시), 없으면 null
+     */
+    public synchronized UUID getUuid(String name) {
+        Named named = byName.get(name.toLowerCase(Locale.ROOT));
+        return named != null ? named.uuid : null;
+    }
+
+    /**
+     * 이름 접두사로 시작하는 플레이어 이름 (탭 완성용, 캐시만 사용)
+     */
+    public synchronized List<String> complete(String prefix, int limit) {
+        String lower = prefix.toLowerCase(Locale.ROOT);
+        List<String> matches = new ArrayList<>();
+        for (Named named : byName.subMap(lower, true, lower + Character.MAX_VALUE, false).values()) {
+            if (matches.size() >= limit) {
+                break;
+            }
+            matches.add(named.name);
+        }
+        return matches;
+    }
+
+    /**
+     * 여러 플레이어의 이름을 캐시나 DB에서 한 번에 찾습니다. 메인 스레드에서 호출하지 마세요.
+     *
+     * @return 찾은 이름 (기록이 없는 UUID는 빠짐)
+     */
+    public Map<UUID, String> lookupNames(Collection<UUID> uuids) {
+        Map<UUID, String> found = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            String name = getName(uuid);
+            if (name != null) {
+                found.put(uuid, name);
+            } else {
+                missing.add(uuid);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        String sql = "SELECT uuid, name FROM player_names WHERE uuid IN ("
+                + String.join(", ", Collections.nCopies(missing.size(), "?")) + ")";
+        try (Connection conn = database.getReadConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < missing.size(); i++) {
+                stmt.setString(i + 1, missing.get(i).toString());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid = UUID.fromString(rs.getString("uuid"));
+                    String name = rs.getString("name");
+                    cache(uuid, name);
+                    found.put(uuid, name);
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to look up player names: " + e.getMessage(), e);
+        }
+        return found;
+    }
+
+    /**
+     * 이름으로 플레이어를 캐시나 DB에서 찾습니다 (대소문자 무시). 메인 스레드에서 호출하지 마세요.
+     *
+     * @return UUID, 기록이 없거나 DB 오류면 null
+     */
+    public UUID lookupUuid(String name) {
+        UUID cached = getUuid(name);
+        if (cached != null) {
+            return cached;
+        }
+
+        try (Connection conn = database.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(BY_NAME_SQL)) {
+            stmt.setString(1, name.toLowerCase(Locale.ROOT));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                UUID uuid = UUID.fromString(rs.getString("uuid"));
+                cache(uuid, rs.getString("name"));
+                return uuid;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to look up player " + name + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 모아둔 접속 기록을 배치 upsert합니다. 실패한 기록은 다음 주기에 다시 시도합니다.
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, String> batch = new HashMap<>();
+        for (Map.Entry<UUID, String> entry : pending.entrySet()) {
+            // Conditional remove keeps a name recorded meanwhile for the next flush
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        try (Connection conn = database.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(UPSERT_SQL)) {
+            for (Map.Entry<UUID, String> entry : batch.entrySet()) {
+                stmt.setString(1, entry.getKey().toString());
+                stmt.setString(2, entry.getValue());
+                stmt.setString(3, entry.getValue().toLowerCase(Locale.ROOT));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to save " + batch.size() + " player names, will retry: " + e.getMessage());
+            // A newer name recorded meanwhile wins over the one that failed
+            batch.forEach(pending::putIfAbsent);
+        }
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        List<String[]> recent = new ArrayList<>();
+        try (Connection conn = database.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(RECENT_SQL)) {
+            stmt.setInt(1, maxEntries);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    recent.add(new String[] { rs.getString("uuid"), rs.getString("name") });
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to load player names: " + e.getMessage(), e);
+            return;
+        }
+
+        // Oldest first, so the most recently seen players end up most recently used
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            try {
+                UUID uuid = UUID.fromString(recent.get(i)[0]);
+                synchronized (this) {
+                    // Players who joined while loading already have a fresher entry
+                    if (!names.containsKey(uuid)) {
+                        put(uuid, recent.get(i)[1]);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                logger.log(Level.WARNING, "Skipping malformed uuid in player_names: " + recent.get(i)[0]);
+            }
+        }
+        logger.log(Level.INFO, "Loaded " + recent.size() + " player names in " + (System.currentTimeMillis() - start)
+                + "ms");
+    }
+
+    private synchronized void cache(UUID uuid, String name) {
+        put(uuid, name);
+    }
+
+    private void put(UUID uuid, String name) {
+        String previous = names.put(uuid, name);
+        if (previous != null && !previous.equalsIgnoreCase(name)) {
+            unindex(previous, uuid);
+        }
+        // The most recent holder of a name owns it
+        byName.put(name.toLowerCase(Locale.ROOT), new Named(uuid, name));
+
+        if (names.size() > maxEntries) {
+            Iterator<Map.Entry<UUID, String>> eldest = names.entrySet().iterator();
+            Map.Entry<UUID, String> entry = eldest.next();
+            unindex(entry.getValue(), entry.getKey());
+            eldest.remove();
+        }
+    }
+
+    private void unindex(String name, UUID uuid) {
+        String key = name.toLowerCase(Locale.ROOT);
+        Named named = byName.get(key);
+        if (named != null && named.uuid.equals(uuid)) {
+            byName.remove(key);
+        }
+    }
+
+    private static final class Named {
+        private final UUID uuid;
+        private final String name;
+
+        private Named(UUID uuid, String name) {
+            this.uuid = uuid;
+            this.name = name;
+        }
+    }
+}
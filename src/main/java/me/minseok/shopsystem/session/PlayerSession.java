@@ -0,0 +1,57 @@
+package me.minseok.shopsystem.session;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 접속 전에 미리 읽어둔 플레이어 상태
+ * AsyncPlayerPreLoginEvent에서 채워지고 퇴장 시 제거됩니다.
+ */
+public class PlayerSession {
+
+    private final UUID uuid;
+    private final boolean newAccount;
+    private final long loadedBalance;
+    private final Set<String> purchases = ConcurrentHashMap.newKeySet();
+    private final long loadedAt;
+
+    PlayerSession(UUID uuid, boolean newAccount, long loadedBalance, Collection<String> purchases) {
+        this.uuid = uuid;
+        this.newAccount = newAccount;
+        this.loadedBalance = loadedBalance;
+        this.purchases.addAll(purchases);
+        this.loadedAt = System.currentTimeMillis();
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    /**
+     * 이번 접속에서 계정이 새로 만들어졌는지 여부
+     */
+    public boolean isNewAccount() {
+        return newAccount;
+    }
+
+    /**
+     * 세션을 만들 때 읽은 잔액 (최소 단위). 현재 잔액은 BalanceCache를 사용하세요.
+     */
+    public long getLoadedBalance() {
+        return loadedBalance;
+    }
+
+    public boolean hasPurchased(String itemId) {
+        return purchases.contains(itemId);
+    }
+
+    void addPurchase(String itemId) {
+        purchases.add(itemId);
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+}
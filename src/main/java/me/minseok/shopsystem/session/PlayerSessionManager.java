@@ -0,0 +1,224 @@
+package me.minseok.shopsystem.session;
+
+import me.minseok.shopsystem.database.DatabaseExecutor;
+import me.minseok.shopsystem.database.DatabaseManager;
+import me.minseok.shopsystem.economy.AccountIndex;
+import me.minseok.shopsystem.economy.BalanceCache;
+import me.minseok.shopsystem.economy.Money;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 플레이어 세션 관리자
+ * 접속 전(비동기)에 계정 생성, 잔액, 1회 구매 기록을 커넥션 하나로 읽어 세션에 보관합니다.
+ */
+public class PlayerSessionManager {
+
+    private static final String ENSURE_SQL = "INSERT INTO player_balances (uuid, balance) VALUES (?, 0.00) "
+            + "ON DUPLICATE KEY UPDATE uuid = uuid";
+    private static final String BALANCE_SQL = "SELECT balance, version FROM player_balances WHERE uuid = ?";
+    private static final String PURCHASES_SQL = "SELECT item_id FROM player_purchases WHERE uuid = ?";
+
+    private final DatabaseManager database;
+    private final DatabaseExecutor executor;
+    private final BalanceCache balanceCache;
+    private final AccountIndex accounts;
+    private final Logger logger;
+    private final Map<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
+
+    // Quit/rejoin bookkeeping; sessions change hands only while holding "this"
+    private final Map<UUID, Long> pendingUnloads = new HashMap<>();
+    private final Map<UUID, CompletableFuture<Void>> unloading = new HashMap<>();
+    private long nextUnloadToken;
+
+    // One-time purchases whose withdrawal is still in flight, as "uuid:itemId"
+    private final Set<String> reservedPurchases = ConcurrentHashMap.newKeySet();
+
+    public PlayerSessionManager(DatabaseManager database, DatabaseExecutor executor, BalanceCache balanceCache,
+            AccountIndex accounts, Logger logger) {
+        this.database = database;
+        this.executor = executor;
+        this.balanceCache = balanceCache;
+        this.accounts = accounts;
+        this.logger = logger;
+    }
+
+    /**
+     * 플레이어 상태를 DB에서 읽어 세션을 만들고 잔액 캐시를 채웁니다
+     * 메인 스레드에서 호출하지 마세요.
+     *
+     * @return 만들어진 세션, DB 오류 시 null
+     */
+    public PlayerSession load(UUID uuid) {
+        CompletableFuture<Void> inProgress;
+        synchronized (this) {
+            // Rejoined before the quit was processed: keep the session and cancel that unload
+            pendingUnloads.remove(uuid);
+            PlayerSession existing = sessions.get(uuid);
+            if (existing != null) {
+                return existing;
+            }
+            inProgress = unloading.get(uuid);
+        }
+        if (inProgress != null) {
+            // Let the quit flush reach the DB before reading the balance back
+            inProgress.join();
+        }
+
+        try (Connection conn = database.getConnection()) {
+            // Known accounts skip the insert; everyone else gets one created here
+            boolean created = false;
+            if (!accounts.contains(uuid)) {
+                try (PreparedStatement stmt = conn.prepareStatement(ENSURE_SQL)) {
+                    stmt.setString(1, uuid.toString());
+                    created = stmt.executeUpdate() == 1;
+                }
+                accounts.add(uuid);
+            }
+
+            long balance = 0;
+            long version = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(BALANCE_SQL)) {
+                stmt.setString(1, uuid.toString());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        balance = Money.read(rs, "balance");
+                        version = rs.getLong("version");
+                    }
+                }
+            }
+
+            List<String> purchases = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(PURCHASES_SQL)) {
+                stmt.setString(1, uuid.toString());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        purchases.add(rs.getString("item_id"));
+                    }
+                }
+            }
+
+            PlayerSession session = new PlayerSession(uuid, created, balance, purchases);
+            PlayerSession previous = sessions.putIfAbsent(uuid, session);
+            balanceCache.prime(uuid, balance, version);
+            return previous != null ? previous : session;
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to prefetch session for " + uuid + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    public PlayerSession get(UUID uuid) {
+        return sessions.get(uuid);
+    }
+
+    /**
+     * 퇴장한 플레이어의 세션 제거를 예약합니다 (메인 스레드에서 호출)
+     * 제거가 실행되기 전에 다시 접속하면 {@link #load}가 예약을 취소합니다.
+     *
+     * @return {@link #unload}에 넘길 토큰
+     */
+    public synchronized long scheduleUnload(UUID uuid) {
+        long token = ++nextUnloadToken;
+        pendingUnloads.put(uuid, token);
+        return token;
+    }
+
+    /**
+     * 아직 실행되지 않은 세션 제거 예약을 취소합니다 (다시 접속했을 때)
+     */
+    public synchronized void cancelUnload(UUID uuid) {
+        pendingUnloads.remove(uuid);
+    }
+
+    /**
+     * 예약된 세션을 제거하고 잔액 캐시의 남은 변경분을 반영합니다
+     * 그 사이 다시 접속했거나 더 나중에 예약되었으면 아무것도 하지 않습니다. 메인 스레드에서 호출하지 마세요.
+     *
+     * @param token {@link #scheduleUnload}가 돌려준 토큰
+     */
+    public void unload(UUID uuid, long token) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (this) {
+            Long pending = pendingUnloads.get(uuid);
+            if (pending == null || pending != token) {
+                return;
+            }
+            pendingUnloads.remove(uuid);
+            sessions.remove(uuid);
+            unloading.put(uuid, done);
+        }
+        try {
+            balanceCache.evict(uuid);
+        } finally {
+            synchronized (this) {
+                unloading.remove(uuid, done);
+            }
+            done.complete(null);
+        }
+    }
+
+    /**
+     * 1회 구매 여부를 확인합니다. 세션이 없으면 DB를 조회합니다.
+     */
+    public boolean hasPurchased(UUID uuid, String itemId) {
+        PlayerSession session = sessions.get(uuid);
+        if (session != null) {
+            return session.hasPurchased(itemId);
+        }
+        return database.hasPurchased(uuid, itemId);
+    }
+
+    /**
+     * 1회 구매를 출금 전에 예약합니다. 출금이 끝나기 전에 다시 클릭해도 두 번 구매되지 않습니다.
+     * 성공하면 {@link #recordPurchase}, 실패하면 {@link #releasePurchase}를 호출해야 합니다.
+     *
+     * @return 예약했는지 여부 (이미 구매했거나 구매 중이면 false)
+     */
+    public boolean reservePurchase(UUID uuid, String itemId) {
+        if (hasPurchased(uuid, itemId)) {
+            return false;
+        }
+        return reservedPurchases.add(uuid + ":" + itemId);
+    }
+
+    /**
+     * 출금이 실패한 구매 예약을 취소합니다
+     */
+    public void releasePurchase(UUID uuid, String itemId) {
+        reservedPurchases.remove(uuid + ":" + itemId);
+    }
+
+    /**
+     * 1회 구매를 기록합니다 (세션은 즉시, DB는 거래 대기열에서)
+     */
+    public void recordPurchase(UUID uuid, String itemId) {
+        PlayerSession session = sessions.get(uuid);
+        if (session != null) {
+            session.addPurchase(itemId);
+            releasePurchase(uuid, itemId);
+        }
+        executor.execute(DatabaseExecutor.Lane.TRADE, () -> {
+            database.recordPurchase(uuid, itemId);
+            // Without a session the DB row is the only record, so the reservation is held until it is written
+            releasePurchase(uuid, itemId);
+        });
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+}
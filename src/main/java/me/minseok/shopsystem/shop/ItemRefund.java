@@ -0,0 +1,39 @@
+package me.minseok.shopsystem.shop;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 판매가 실패했을 때 미리 꺼낸 아이템을 돌려줍니다
+ * 인벤토리에 들어가지 않는 만큼은 플레이어 발밑에 떨어뜨립니다.
+ */
+public final class ItemRefund {
+
+    private ItemRefund() {
+    }
+
+    /**
+     * 인벤토리에서 꺼내기 전에 복사본을 만듭니다 (꺼낸 뒤에는 원본 스택이 비워질 수 있음)
+     */
+    public static List<ItemStack> copyOf(Collection<ItemStack> items) {
+        List<ItemStack> copies = new ArrayList<>(items.size());
+        for (ItemStack item : items) {
+            copies.add(item.clone());
+        }
+        return copies;
+    }
+
+    public static void giveBack(Player player, Collection<ItemStack> items) {
+        for (ItemStack leftover : player.getInventory().addItem(items.toArray(new ItemStack[0])).values()) {
+            player.getWorld().dropItemNaturally(player.getLocation(), leftover);
+        }
+    }
+
+    public static void giveBack(Player player, ItemStack item) {
+        giveBack(player, List.of(item));
+    }
+}
@@ -1,7 +1,9 @@
 package me.minseok.shopsystem.shop;
 
+import me.minseok.shopsystem.economy.EconomyResult;
+import me.minseok.shopsystem.economy.Money;
 import me.minseok.shopsystem.economy.VaultEconomy;
-import net.milkbowl.vault.economy.EconomyResponse;
+import me.minseok.shopsystem.session.PlayerSessionManager;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -18,16 +20,19 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 public class ShopGUI implements Listener {
 
     private final ShopManager shopManager;
     private final VaultEconomy economy;
+    private final PlayerSessionManager sessions;
     private final Map<String, Map<Integer, Inventory>> pageCache = new HashMap<>(); // 페이지 캐싱
 
-    public ShopGUI(ShopManager shopManager, VaultEconomy economy) {
+    public ShopGUI(ShopManager shopManager, VaultEconomy economy, PlayerSessionManager sessions) {
         this.shopManager = shopManager;
         this.economy = economy;
+        this.sessions = sessions;
     }
 
     public void openMainMenu(Player player) {
@@ -67,7 +72,7 @@ public class ShopGUI implements Listener {
 
             List<String> headLore = new ArrayList<>();
             headLore.add("");
-            headLore.add("§a💰 잔액: §f" + economy.format(economy.getBalance(player)));
+            headLore.add("§a💰 잔액: §f" + economy.format(economy.balanceOf(player.getUniqueId())));
             headLore.add("");
             headLore.add("§7서버 경제 시스템");
             skullMeta.setLore(headLore);
@@ -181,7 +186,7 @@ public class ShopGUI implements Listener {
 
             // Check one-time purchase
             if (item.isOneTime()) {
-                if (shopManager.getDatabase().hasPurchased(player.getUniqueId(), item.getMaterial().name())) {
+                if (sessions.hasPurchased(player.getUniqueId(), item.getId())) {
                     display.setType(Material.BARRIER);
                     meta = display.getItemMeta();
                     if (meta != null) {
@@ -346,12 +351,6 @@ public class ShopGUI implements Listener {
             int amount = event.isShiftClick() ? 64 : 1;
 
             if (isBuy) {
-                // Check one-time purchase
-                if (shopItem.isOneTime() && shopManager.getDatabase().hasPurchased(player.getUniqueId(),
-                        shopItem.getId())) {
-                    player.sendMessage("§c이미 구매한 아이템입니다!");
-                    return;
-                }
                 handlePurchase(player, shopItem, amount);
             } else {
                 if (event.isShiftClick()) {
@@ -436,12 +435,7 @@ public class ShopGUI implements Listener {
     }
 
     private void handlePurchase(Player player, ShopManager.ShopItem item, int amount) {
-        double totalPrice = item.getBuyPrice() * amount;
-
-        if (!economy.has(player, totalPrice)) {
-            player.sendMessage("§c잔액이 부족합니다! 필요: " + economy.format(totalPrice));
-            return;
-        }
+        long totalPrice = Money.times(item.getBuyPrice(), amount);
 
         // Check inventory space
         if (player.getInventory().firstEmpty() == -1) {
@@ -449,30 +443,61 @@ public class ShopGUI implements Listener {
             return;
         }
 
-        EconomyResponse response = economy.withdrawPlayer(player, totalPrice);
-        if (!response.transactionSuccess()) {
-            player.sendMessage("§c구매 실패: " + response.errorMessage);
+        UUID uuid = player.getUniqueId();
+        // Reserve before withdrawing so a second click during the round trip cannot buy it again
+        if (item.isOneTime() && !sessions.reservePurchase(uuid, item.getId())) {
+            player.sendMessage("§c이미 구매한 아이템입니다!");
             return;
         }
 
-        // Give items to player
-        ItemStack toAdd = createShopItemStack(item, amount);
-        player.getInventory().addItem(toAdd);
+        economy.onMain(economy.withdrawAsync(uuid, totalPrice, "PURCHASE"), result -> {
+            if (!result.isSuccess()) {
+                if (item.isOneTime()) {
+                    sessions.releasePurchase(uuid, item.getId());
+                }
+                if (result.getStatus() == EconomyResult.Status.INSUFFICIENT_FUNDS) {
+                    player.sendMessage("§c잔액이 부족합니다! 필요: " + economy.format(totalPrice));
+                } else {
+                    player.sendMessage("§c구매 실패: " + result.getError());
+                }
+                return;
+            }
 
-        player.sendMessage("§a✓ " + item.getMaterial().name() + " x" + amount + "을(를) " +
-                economy.format(totalPrice) + "에 구매했습니다");
-        player.sendMessage("§7잔액: " + economy.format(response.balance));
+            if (!player.isOnline()) {
+                // Left before the withdrawal completed; nobody to hand the items to
+                if (item.isOneTime()) {
+                    sessions.releasePurchase(uuid, item.getId());
+                }
+                economy.depositAsync(uuid, totalPrice, "DEPOSIT");
+                return;
+            }
 
-        // Adjust price
-        if (item.hasDynamicPricing()) {
-            shopManager.adjustPrice(item, true, amount);
-            player.sendMessage("§6📊 수요 증가로 가격이 상승했습니다!");
-        }
+            // Give items to player (drop whatever no longer fits)
+            ItemStack toAdd = createShopItemStack(item, amount);
+            for (ItemStack leftover : player.getInventory().addItem(toAdd).values()) {
+                player.getWorld().dropItemNaturally(player.getLocation(), leftover);
+            }
 
-        // Record one-time purchase
-        if (item.isOneTime()) {
-            shopManager.getDatabase().recordPurchase(player.getUniqueId(), item.getId());
-        }
+            player.sendMessage("§a✓ " + item.getMaterial().name() + " x" + amount + "을(를) " +
+                    economy.format(totalPrice) + "에 구매했습니다");
+            player.sendMessage("§7잔액: " + economy.format(result.getBalance()));
+
+            // Adjust price
+            if (item.hasDynamicPricing()) {
+                shopManager.adjustPrice(item, true, amount);
+                player.sendMessage("§6📊 수요 증가로 가격이 상승했습니다!");
+            }
+
+            // Record one-time purchase
+            if (item.isOneTime()) {
+                sessions.recordPurchase(uuid, item.getId());
+            }
+        }, error -> {
+            if (item.isOneTime()) {
+                sessions.releasePurchase(uuid, item.getId());
+            }
+            player.sendMessage("§c구매 실패: 데이터베이스 오류");
+        });
     }
 
     private void handleSale(Player player, ShopManager.ShopItem item, int amount) {
@@ -483,7 +508,7 @@ public class ShopGUI implements Listener {
             return;
         }
 
-        double totalPrice = item.getSellPrice() * amount;
+        long totalPrice = Money.times(item.getSellPrice(), amount);
 
         // Remove items from inventory (handle large amounts)
         int leftToRemove = amount;
@@ -494,25 +519,26 @@ public class ShopGUI implements Listener {
             leftToRemove -= toRemoveNow;
         }
 
-        EconomyResponse response = economy.depositPlayer(player, totalPrice);
-        if (!response.transactionSuccess()) {
-            // Refund items (simplified, might lose items if inv full, but unlikely for
-            // sell)
-            ItemStack toAdd = createShopItemStack(item, amount);
-            player.getInventory().addItem(toAdd);
-            player.sendMessage("§c판매 실패: " + response.errorMessage);
-            return;
-        }
+        economy.onMain(economy.depositAsync(player.getUniqueId(), totalPrice, "SALE"), result -> {
+            if (!result.isSuccess()) {
+                ItemRefund.giveBack(player, createShopItemStack(item, amount));
+                player.sendMessage("§c판매 실패: " + result.getError());
+                return;
+            }
 
-        player.sendMessage("§a✓ " + item.getMaterial().name() + " x" + amount + "을(를) " +
-                economy.format(totalPrice) + "에 판매했습니다");
-        player.sendMessage("§7잔액: " + economy.format(response.balance));
+            player.sendMessage("§a✓ " + item.getMaterial().name() + " x" + amount + "을(를) " +
+                    economy.format(totalPrice) + "에 판매했습니다");
+            player.sendMessage("§7잔액: " + economy.format(result.getBalance()));
 
-        // Adjust price
-        if (item.hasDynamicPricing()) {
-            shopManager.adjustPrice(item, false, amount);
-            player.sendMessage("§6📊 공급 증가로 가격이 하락했습니다!");
-        }
+            // Adjust price
+            if (item.hasDynamicPricing()) {
+                shopManager.adjustPrice(item, false, amount);
+                player.sendMessage("§6📊 공급 증가로 가격이 하락했습니다!");
+            }
+        }, error -> {
+            ItemRefund.giveBack(player, createShopItemStack(item, amount));
+            player.sendMessage("§c판매 실패: 데이터베이스 오류 (아이템을 돌려드렸습니다)");
+        });
     }
 
     private ItemStack createShopItemStack(ShopManager.ShopItem item, int amount) {
@@ -748,7 +774,7 @@ public class ShopGUI implements Listener {
                     lore.add("§eShift + 우클릭: §f전체 판매");
 
                     if (updatedItem.isOneTime()) {
-                        if (shopManager.getDatabase().hasPurchased(player.getUniqueId(),
+                        if (sessions.hasPurchased(player.getUniqueId(),
                                 updatedItem.getId())) { // Use ID for check
                             newItem.setType(Material.BARRIER);
                             meta = newItem.getItemMeta();
@@ -7,9 +7,11 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.NamespacedKey;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
+import me.minseok.shopsystem.audit.AuditLog;
+import me.minseok.shopsystem.database.DatabaseExecutor;
 import me.minseok.shopsystem.database.DatabaseManager;
+import me.minseok.shopsystem.economy.Money;
 
 import java.io.File;
 import java.sql.Connection;
@@ -20,6 +22,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -29,8 +32,11 @@ public class ShopManager {
     private final Logger logger;
     private final DatabaseManager database;
     private final Plugin plugin;
+    private final DatabaseExecutor executor;
+    private final AuditLog audit;
     private final Map<String, ShopCategory> categories = new HashMap<>();
     private final Map<String, ShopItem> itemCache = new HashMap<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
 
     // Dynamic Pricing Configuration
     private double buyIncreaseRate = 0.05;
@@ -40,11 +46,14 @@ public class ShopManager {
     private double decayRate = 0.01; // 1% per interval
     private int decayInterval = 3600; // seconds
 
-    public ShopManager(File dataFolder, Logger logger, DatabaseManager database, Plugin plugin) {
+    public ShopManager(File dataFolder, Logger logger, DatabaseManager database, DatabaseExecutor executor,
+            Plugin plugin, AuditLog audit) {
         this.shopsFolder = new File(dataFolder, "shops");
         this.logger = logger;
         this.database = database;
+        this.executor = executor;
         this.plugin = plugin;
+        this.audit = audit;
 
         if (!shopsFolder.exists()) {
             shopsFolder.mkdirs();
@@ -78,20 +87,16 @@ public class ShopManager {
      * @return 변동률 (%)
      */
     public double calculatePriceChangePercentage(ShopItem item, boolean isBuy) {
-        double base = isBuy ? item.getBaseBuyPrice() : item.getBaseSellPrice();
-        double current = isBuy ? item.getBuyPrice() : item.getSellPrice();
+        long base = isBuy ? item.getBaseBuyPrice() : item.getBaseSellPrice();
+        long current = isBuy ? item.getBuyPrice() : item.getSellPrice();
         if (base == 0)
             return 0;
-        return ((current - base) / base) * 100;
+        return ((current - base) * 100.0) / base;
     }
 
     private void startPriceDecayScheduler() {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                applyPriceDecay();
-            }
-        }.runTaskTimerAsynchronously(plugin, decayInterval * 20L, decayInterval * 20L);
+        executor.repeat(DatabaseExecutor.Lane.BACKGROUND, this::applyPriceDecay, decayInterval * 20L,
+                decayInterval * 20L);
         logger.log(Level.INFO, "Price decay scheduler started (interval: " + decayInterval + "s)");
     }
 
@@ -101,16 +106,16 @@ public class ShopManager {
             if (!item.hasDynamicPricing())
                 continue;
 
-            double currentBuy = item.getBuyPrice();
-            double currentSell = item.getSellPrice();
-            double baseBuy = item.getBaseBuyPrice();
-            double baseSell = item.getBaseSellPrice();
+            long currentBuy = item.getBuyPrice();
+            long currentSell = item.getSellPrice();
+            long baseBuy = item.getBaseBuyPrice();
+            long baseSell = item.getBaseSellPrice();
 
             boolean changed = false;
 
             // Decay towards base price
             if (currentBuy > baseBuy) {
-                double newBuy = currentBuy * (1 - decayRate);
+                long newBuy = Money.scale(currentBuy, 1 - decayRate);
                 if (newBuy < baseBuy)
                     newBuy = baseBuy;
                 item.setBuyPrice(newBuy);
@@ -118,7 +123,7 @@ public class ShopManager {
             }
 
             if (currentSell < baseSell) {
-                double newSell = currentSell * (1 + decayRate);
+                long newSell = Money.scale(currentSell, 1 + decayRate);
                 if (newSell > baseSell)
                     newSell = baseSell;
                 item.setSellPrice(newSell);
@@ -126,7 +131,7 @@ public class ShopManager {
             }
 
             if (changed) {
-                savePriceToDatabase(item);
+                savePriceToDatabase(item, DatabaseExecutor.Lane.BACKGROUND);
                 itemsDecayed++;
             }
         }
@@ -158,17 +163,14 @@ public class ShopManager {
     }
 
     private void resetPrice(ShopItem item, java.util.Random random) {
-        double baseBuy = item.getBaseBuyPrice();
-        double baseSell = item.getBaseSellPrice();
-
-        double newBuy = baseBuy;
-        double newSell = baseSell;
+        long newBuy = item.getBaseBuyPrice();
+        long newSell = item.getBaseSellPrice();
 
         // Apply random fluctuation if enabled
         if (resetFluctuation > 0) {
             double fluctuation = 1.0 + (random.nextDouble() * 2 - 1) * resetFluctuation; // 1.0 +/- fluctuation
-            newBuy *= fluctuation;
-            newSell *= fluctuation;
+            newBuy = Money.scale(newBuy, fluctuation);
+            newSell = Money.scale(newSell, fluctuation);
         }
 
         item.setBuyPrice(newBuy);
@@ -183,10 +185,12 @@ public class ShopManager {
     }
 
     private void savePriceToDatabase(ShopItem item) {
+        savePriceToDatabase(item, DatabaseExecutor.Lane.TRADE);
+    }
+
+    private void savePriceToDatabase(ShopItem item, DatabaseExecutor.Lane lane) {
         // 비동기로 DB 저장 (메인 스레드 블로킹 방지)
-        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
-            executeSavePriceToDatabase(item);
-        });
+        executor.execute(lane, () -> executeSavePriceToDatabase(item));
     }
 
     private void executeSavePriceToDatabase(ShopItem item) {
@@ -198,13 +202,14 @@ public class ShopManager {
         try (Connection conn = database.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, item.getId());
-            stmt.setDouble(2, item.getBaseBuyPrice());
-            stmt.setDouble(3, item.getBuyPrice());
-            stmt.setDouble(4, item.getSellPrice());
-            stmt.setDouble(5, item.getBuyPrice());
-            stmt.setDouble(6, item.getSellPrice());
+            Money.bind(stmt, 2, item.getBaseBuyPrice());
+            Money.bind(stmt, 3, item.getBuyPrice());
+            Money.bind(stmt, 4, item.getSellPrice());
+            Money.bind(stmt, 5, item.getBuyPrice());
+            Money.bind(stmt, 6, item.getSellPrice());
             int rows = stmt.executeUpdate();
-            plugin.getLogger().info("DEBUG: Saved price for " + item.getMaterial().name() + ". Rows affected: " + rows);
+            audit.log(AuditLog.Category.PRICING, Level.FINE, "price_saved", "item", item.getId(),
+                    "buy", item.getBuyPrice(), "sell", item.getSellPrice(), "rows", rows);
         } catch (SQLException e) {
             logger.warning("Failed to save price for " + item.getMaterial() + ": " + e.getMessage());
             e.printStackTrace();
@@ -219,8 +224,8 @@ public class ShopManager {
             stmt.setString(1, item.getId());
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    item.setBuyPrice(rs.getDouble("current_price"));
-                    item.setSellPrice(rs.getDouble("sell_price"));
+                    item.setBuyPrice(Money.read(rs, "current_price"));
+                    item.setSellPrice(Money.read(rs, "sell_price"));
                 }
             }
         } catch (SQLException e) {
@@ -282,8 +287,8 @@ public class ShopManager {
                     continue;
                 }
 
-                double buyPrice = itemSection.getDouble("buy", 0);
-                double sellPrice = itemSection.getDouble("sell", 0);
+                long buyPrice = Money.ofMajor(itemSection.getDouble("buy", 0));
+                long sellPrice = Money.ofMajor(itemSection.getDouble("sell", 0));
                 boolean dynamicPricing = itemSection.getBoolean("dynamic", false);
                 boolean oneTime = itemSection.getBoolean("one-time", false);
 
@@ -360,10 +365,10 @@ public class ShopManager {
         if (!item.hasDynamicPricing())
             return;
 
-        double currentBuy = item.getBuyPrice();
-        double currentSell = item.getSellPrice();
-        double baseBuy = item.getBaseBuyPrice();
-        double baseSell = item.getBaseSellPrice();
+        long currentBuy = item.getBuyPrice();
+        long currentSell = item.getSellPrice();
+        long baseBuy = item.getBaseBuyPrice();
+        long baseSell = item.getBaseSellPrice();
 
         // Determine rates (use item-specific if available, otherwise global)
         double increaseRate = (item.getBuyRate() != null) ? item.getBuyRate() : buyIncreaseRate;
@@ -373,24 +378,12 @@ public class ShopManager {
         double rateFactor = isBuy ? (1 + increaseRate) : (1 - decreaseRate);
         double adjustment = Math.pow(rateFactor, amount);
 
-        double newBuy = currentBuy * adjustment;
-        double newSell = currentSell * adjustment;
+        long newBuy = Money.scale(currentBuy, adjustment);
+        long newSell = Money.scale(currentSell, adjustment);
 
         // Apply multiplier limits
-        double buyMultiplier = newBuy / baseBuy;
-        double sellMultiplier = newSell / baseSell;
-
-        if (buyMultiplier > maxMultiplier) {
-            newBuy = baseBuy * maxMultiplier;
-        } else if (buyMultiplier < minMultiplier) {
-            newBuy = baseBuy * minMultiplier;
-        }
-
-        if (sellMultiplier > maxMultiplier) {
-            newSell = baseSell * maxMultiplier;
-        } else if (sellMultiplier < minMultiplier) {
-            newSell = baseSell * minMultiplier;
-        }
+        newBuy = clamp(newBuy, Money.scale(baseBuy, minMultiplier), Money.scale(baseBuy, maxMultiplier));
+        newSell = clamp(newSell, Money.scale(baseSell, minMultiplier), Money.scale(baseSell, maxMultiplier));
 
         item.setBuyPrice(newBuy);
         item.setSellPrice(newSell);
@@ -406,6 +399,10 @@ public class ShopManager {
         broadcastPriceUpdate(item);
     }
 
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
     private void broadcastPriceUpdate(ShopItem item) {
         if (plugin.getServer().getOnlinePlayers().isEmpty()) {
             return;
@@ -417,22 +414,24 @@ public class ShopManager {
         com.google.common.io.ByteArrayDataOutput dataOut = com.google.common.io.ByteStreams.newDataOutput();
         dataOut.writeUTF("PRICE_UPDATE");
         dataOut.writeUTF(item.getId());
-        dataOut.writeDouble(item.getBuyPrice());
-        dataOut.writeDouble(item.getSellPrice());
+        dataOut.writeDouble(Money.toMajor(item.getBuyPrice()));
+        dataOut.writeDouble(Money.toMajor(item.getSellPrice()));
         dataOut.writeUTF(plugin.getConfig().getString("server-name", "unknown"));
 
         // Send directly to Velocity on shopsystem:sync
         player.sendPluginMessage(plugin, "shopsystem:sync", dataOut.toByteArray());
-        plugin.getLogger().info("Sent PRICE_UPDATE for " + item.getId() + " to Velocity via shopsystem:sync");
+        audit.log(AuditLog.Category.MESSAGING, Level.FINE, "price_update_sent", "item", item.getId(), "via",
+                player.getName());
     }
 
-    public void updateItemPrice(String itemId, double buyPrice, double sellPrice) {
+    public void updateItemPrice(String itemId, long buyPrice, long sellPrice) {
         ShopItem item = itemCache.get(itemId);
         if (item != null) {
             item.setBuyPrice(buyPrice);
             item.setSellPrice(sellPrice);
             savePriceToDatabase(item);
-            logger.info("Updated price for " + itemId + ": Buy=" + buyPrice + ", Sell=" + sellPrice);
+            audit.log(AuditLog.Category.PRICING, Level.INFO, "price_updated", "item", itemId, "buy", buyPrice,
+                    "sell", sellPrice);
 
             plugin.getServer().getPluginManager()
                     .callEvent(new me.minseok.shopsystem.events.ShopPriceUpdateEvent(item));
@@ -490,27 +489,53 @@ public class ShopManager {
 
     public void refreshPrices() {
         int count = 0;
-        for (ShopItem item : itemCache.values()) {
-            if (item.hasDynamicPricing()) {
-                loadPriceFromDatabase(item);
-                count++;
+        String sql = "SELECT item_id, current_price, sell_price FROM price_data";
+
+        // One query for every dynamic item instead of one round trip per item
+        try (Connection conn = database.getReadConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                ShopItem item = itemCache.get(rs.getString("item_id"));
+                if (item != null && item.hasDynamicPricing()) {
+                    item.setBuyPrice(Money.read(rs, "current_price"));
+                    item.setSellPrice(Money.read(rs, "sell_price"));
+                    count++;
+                }
             }
+        } catch (SQLException e) {
+            logger.warning("Failed to refresh prices: " + e.getMessage());
+            return;
         }
         logger.info("Refreshed prices for " + count + " items from database");
     }
 
+    /**
+     * 가격 갱신이 이미 진행 중이면 건너뜁니다 (접속이 몰릴 때 중복 갱신 방지)
+     */
+    public void refreshPricesCoalesced() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshPrices();
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
     public List<Map<String, Object>> getPriceHistory(String itemId, int limit) {
         List<Map<String, Object>> history = new ArrayList<>();
         String sql = "SELECT price, reason, timestamp FROM price_history WHERE item_id = ? ORDER BY timestamp DESC LIMIT ?";
 
-        try (Connection conn = database.getConnection();
+        try (Connection conn = database.getReadConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, itemId);
             stmt.setInt(2, limit);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     Map<String, Object> record = new HashMap<>();
-                    record.put("price", rs.getDouble("price"));
+                    record.put("price", Money.read(rs, "price"));
                     record.put("reason", rs.getString("reason"));
                     record.put("timestamp", rs.getTimestamp("timestamp"));
                     history.add(record);
@@ -527,7 +552,7 @@ public class ShopManager {
         Map<String, Integer> popular = new HashMap<>();
         String sql = "SELECT item_id, transaction_count FROM price_data ORDER BY transaction_count DESC LIMIT ?";
 
-        try (Connection conn = database.getConnection();
+        try (Connection conn = database.getReadConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, limit);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -584,17 +609,18 @@ public class ShopManager {
     public static class ShopItem {
         private final String id;
         private final Material material;
-        private double buyPrice;
-        private double sellPrice;
-        private final double baseBuyPrice;
-        private final double baseSellPrice;
+        // Prices are in minor units (see Money)
+        private long buyPrice;
+        private long sellPrice;
+        private final long baseBuyPrice;
+        private final long baseSellPrice;
         private final boolean dynamicPricing;
         private final boolean oneTime;
         private final Map<Enchantment, Integer> enchantments;
         private final Double buyRate;
         private final Double sellRate;
 
-        public ShopItem(String id, Material material, double buyPrice, double sellPrice, boolean dynamicPricing,
+        public ShopItem(String id, Material material, long buyPrice, long sellPrice, boolean dynamicPricing,
                 boolean oneTime,
                 Map<Enchantment, Integer> enchantments, Double buyRate, Double sellRate) {
             this.id = id;
@@ -618,19 +644,19 @@ public class ShopManager {
             return material;
         }
 
-        public double getBuyPrice() {
+        public long getBuyPrice() {
             return buyPrice;
         }
 
-        public double getSellPrice() {
+        public long getSellPrice() {
             return sellPrice;
         }
 
-        public double getBaseBuyPrice() {
+        public long getBaseBuyPrice() {
             return baseBuyPrice;
         }
 
-        public double getBaseSellPrice() {
+        public long getBaseSellPrice() {
             return baseSellPrice;
         }
 
@@ -654,11 +680,11 @@ public class ShopManager {
             return sellRate;
         }
 
-        public void setBuyPrice(double price) {
+        public void setBuyPrice(long price) {
             this.buyPrice = price;
         }
 
-        public void setSellPrice(double price) {
+        public void setSellPrice(long price) {
             this.sellPrice = price;
         }
     }